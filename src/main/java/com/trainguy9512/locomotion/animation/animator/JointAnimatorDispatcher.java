@@ -4,6 +4,7 @@ import com.trainguy9512.locomotion.LocomotionMain;
 import com.trainguy9512.locomotion.access.MatrixModelPart;
 import com.trainguy9512.locomotion.animation.animator.entity.EntityJointAnimator;
 import com.trainguy9512.locomotion.animation.data.AnimationDataContainer;
+import com.trainguy9512.locomotion.animation.pose.LocalSpacePose;
 import com.trainguy9512.locomotion.animation.pose.Pose;
 import com.trainguy9512.locomotion.animation.joint.skeleton.JointSkeleton;
 import com.trainguy9512.locomotion.animation.pose.ComponentSpacePose;
@@ -11,8 +12,10 @@ import net.minecraft.client.Minecraft;
 import net.minecraft.client.model.EntityModel;
 import net.minecraft.client.renderer.entity.state.EntityRenderState;
 import net.minecraft.world.entity.Entity;
+import org.joml.Matrix4f;
 
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.WeakHashMap;
 
@@ -40,6 +43,18 @@ public class JointAnimatorDispatcher {
         this.entityAnimationDataContainerStorage.clear();
     }
 
+    /**
+     * Re-initializes the data containers whose joint skeleton is no longer loaded, such as after a resource reload
+     * changed it. Data containers with an unchanged joint skeleton keep their state.
+     * @param staleJointSkeletons   Joint skeletons that were replaced or removed, compared by identity.
+     */
+    public void reInitializeDataWithStaleJointSkeletons(Set<JointSkeleton> staleJointSkeletons) {
+        if (this.firstPersonPlayerDataContainer != null && staleJointSkeletons.contains(this.firstPersonPlayerDataContainer.getJointSkeleton())) {
+            this.firstPersonPlayerDataContainer = null;
+        }
+        this.entityAnimationDataContainerStorage.values().removeIf(dataContainer -> staleJointSkeletons.contains(dataContainer.getJointSkeleton()));
+    }
+
     public <T extends Entity> void tickEntityJointAnimators(Iterable<T> entitiesForRendering) {
         entitiesForRendering.forEach(entity ->
                 JointAnimatorRegistry.getThirdPersonJointAnimator(entity).ifPresent(
@@ -71,7 +86,7 @@ public class JointAnimatorDispatcher {
         jointAnimator.extractAnimationData(dataReference, dataContainer, dataContainer.getMontageManager());
         dataContainer.tick();
         if(jointAnimator.getPoseCalulationFrequency() == JointAnimator.PoseCalculationFrequency.CALCULATE_ONCE_PER_TICK){
-            dataContainer.getDriver(dataContainer.getPerTickCalculatedPoseDriverKey()).setValue(dataContainer.computePose(1));
+            dataContainer.getDriver(dataContainer.getPerTickCalculatedPoseDriverKey()).setValue(LocalSpacePose.of(dataContainer.computePose(1)));
         }
         dataContainer.postTick();
     }
@@ -109,22 +124,23 @@ public class JointAnimatorDispatcher {
 
     public ComponentSpacePose getInterpolatedAnimationPose(JointAnimator<?> jointAnimator, AnimationDataContainer dataContainer, float partialTicks){
         return switch (jointAnimator.getPoseCalulationFrequency()) {
-            case CALCULATE_EVERY_FRAME -> dataContainer.computePose(partialTicks).convertedToComponentSpace();
-            case CALCULATE_ONCE_PER_TICK -> dataContainer.getInterpolatedDriverValue(dataContainer.getPerTickCalculatedPoseDriverKey(), partialTicks).convertedToComponentSpace();
+            case CALCULATE_EVERY_FRAME -> dataContainer.computePose(partialTicks).convertedToComponentSpace(dataContainer.getComponentSpacePose());
+            case CALCULATE_ONCE_PER_TICK -> dataContainer.getInterpolatedDriverValue(dataContainer.getPerTickCalculatedPoseDriverKey(), partialTicks).convertedToComponentSpace(dataContainer.getComponentSpacePose());
         };
     }
 
     public <S extends EntityRenderState> void setupAnimWithAnimationPose(EntityModel<S> entityModel, S entityRenderState, Pose pose, EntityJointAnimator<?, S> entityJointAnimator){
         entityModel.resetPose();
         JointSkeleton jointSkeleton = pose.getJointSkeleton();
-        jointSkeleton.getJoints()
-                .forEach(joint -> {
-                    if(jointSkeleton.getJointConfiguration(joint).modelPartIdentifier() != null){
-                        entityModel.getAnyDescendantWithName(jointSkeleton.getJointConfiguration(joint).modelPartIdentifier()).ifPresent(
-                                modelPart -> ((MatrixModelPart)(Object) modelPart).locomotion$setMatrix(pose.getJointChannel(joint).getTransform())
-                        );
-                    }
-                });
+        for (int joint = 0; joint < jointSkeleton.getJointCount(); joint++) {
+            String modelPartIdentifier = jointSkeleton.getJointConfiguration(jointSkeleton.getJointName(joint)).modelPartIdentifier();
+            if (modelPartIdentifier != null) {
+                Matrix4f jointTransform = pose.getJointTransform(joint, new Matrix4f());
+                entityModel.getAnyDescendantWithName(modelPartIdentifier).ifPresent(
+                        modelPart -> ((MatrixModelPart)(Object) modelPart).locomotion$setMatrix(jointTransform)
+                );
+            }
+        }
         entityJointAnimator.postProcessModelParts(entityModel, entityRenderState);
 
     }
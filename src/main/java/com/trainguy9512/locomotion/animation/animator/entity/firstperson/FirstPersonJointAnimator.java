@@ -89,7 +89,8 @@ public class FirstPersonJointAnimator implements LivingEntityJointAnimator<Local
 
     @Override
     public PoseFunction<LocalSpacePose> constructPoseFunction(CachedPoseContainer cachedPoseContainer) {
-        cachedPoseContainer.register(ADDITIVE_GROUND_MOVEMENT_CACHE, com.trainguy9512.locomotion.animation.animator.entity.firstperson.FirstPersonAdditiveMovement.constructPoseFunction(cachedPoseContainer), false);
+        // The additive ground movement changes slowly, so it is computed once per tick and interpolated.
+        cachedPoseContainer.register(ADDITIVE_GROUND_MOVEMENT_CACHE, PerTickPoseFunction.of(com.trainguy9512.locomotion.animation.animator.entity.firstperson.FirstPersonAdditiveMovement.constructPoseFunction(cachedPoseContainer)), false);
 
         PoseFunction<LocalSpacePose> mainHandPose = FirstPersonHandPose.constructPoseFunction(cachedPoseContainer, InteractionHand.MAIN_HAND);
         PoseFunction<LocalSpacePose> offHandPose = FirstPersonHandPose.constructPoseFunction(cachedPoseContainer, InteractionHand.OFF_HAND);
@@ -6,8 +6,11 @@ import com.trainguy9512.locomotion.animation.driver.Driver;
 import com.trainguy9512.locomotion.animation.driver.VariableDriver;
 import com.trainguy9512.locomotion.animation.driver.DriverKey;
 import com.trainguy9512.locomotion.animation.joint.skeleton.JointSkeleton;
+import com.trainguy9512.locomotion.animation.pose.ComponentSpacePose;
 import com.trainguy9512.locomotion.animation.pose.LocalSpacePose;
+import com.trainguy9512.locomotion.animation.pose.PoseArena;
 import com.trainguy9512.locomotion.animation.pose.function.PoseFunction;
+import com.trainguy9512.locomotion.animation.pose.function.PoseProgram;
 import com.trainguy9512.locomotion.animation.pose.function.cache.CachedPoseContainer;
 import com.trainguy9512.locomotion.animation.pose.function.montage.MontageManager;
 import com.trainguy9512.locomotion.resource.LocomotionResources;
@@ -21,19 +24,26 @@ public class AnimationDataContainer implements PoseCalculationDataContainer, OnT
     private final Map<DriverKey<? extends Driver<?>>, Driver<?>> drivers;
     private final CachedPoseContainer savedCachedPoseContainer;
     private final PoseFunction<LocalSpacePose> poseFunction;
+    private final PoseProgram<LocalSpacePose> poseProgram;
     private final MontageManager montageManager;
 
     private final JointSkeleton jointSkeleton;
+    private final ComponentSpacePose componentSpacePose;
+    private final PoseArena poseArena;
     private final DriverKey<VariableDriver<LocalSpacePose>> perTickCalculatedPoseDriverKey;
     private final DriverKey<VariableDriver<Long>> gameTimeTicksDriverKey;
 
     private AnimationDataContainer(JointAnimator<?> jointAnimator) {
-        this.drivers = Maps.newHashMap();
+        // Drivers can be looked up from pose functions that are computed in parallel.
+        this.drivers = Maps.newConcurrentMap();
         this.savedCachedPoseContainer = CachedPoseContainer.of();
         this.poseFunction = jointAnimator.constructPoseFunction(savedCachedPoseContainer).wrapUnique();
+        this.poseProgram = PoseProgram.compile(this.poseFunction);
         this.montageManager = MontageManager.of();
 
         this.jointSkeleton = LocomotionResources.getOrThrowJointSkeleton(jointAnimator.getJointSkeleton());
+        this.componentSpacePose = ComponentSpacePose.of(this.jointSkeleton);
+        this.poseArena = PoseArena.of(this.jointSkeleton);
         this.perTickCalculatedPoseDriverKey = DriverKey.of("per_tick_calculated_pose", () -> VariableDriver.ofInterpolatable(() -> LocalSpacePose.of(jointSkeleton), Interpolator.LOCAL_SPACE_POSE));
         this.gameTimeTicksDriverKey = DriverKey.of("game_time", () -> VariableDriver.ofConstant(() -> 0L));
         this.tick();
@@ -63,13 +73,22 @@ public class AnimationDataContainer implements PoseCalculationDataContainer, OnT
         this.drivers.values().forEach(Driver::postTick);
     }
 
+    /**
+     * Computes the pose of the pose function graph, by executing the program it was compiled into.
+     * <p>
+     * The returned pose is borrowed from this container's pose arena, and is overwritten by the next call to this method.
+     * Copy it if it needs to be kept around.
+     * @param partialTicks          Partial ticks for interpolating per-tick values
+     */
     public LocalSpacePose computePose(float partialTicks) {
         this.savedCachedPoseContainer.clearCaches();
-        return this.poseFunction.compute(PoseFunction.FunctionInterpolationContext.of(
+        this.poseArena.reset();
+        return this.poseProgram.execute(PoseFunction.FunctionInterpolationContext.of(
                 this,
                 this.montageManager,
                 partialTicks,
-                TimeSpan.ofTicks(this.getInterpolatedDriverValue(gameTimeTicksDriverKey, 1) + partialTicks)
+                TimeSpan.ofTicks(this.getInterpolatedDriverValue(gameTimeTicksDriverKey, 1) + partialTicks),
+                this.poseArena
         ));
     }
 
@@ -78,6 +97,14 @@ public class AnimationDataContainer implements PoseCalculationDataContainer, OnT
         return this.jointSkeleton;
     }
 
+    /**
+     * Returns the component space pose owned by this data container, which is overwritten every time a computed pose is
+     * converted to component space for rendering.
+     */
+    public ComponentSpacePose getComponentSpacePose() {
+        return this.componentSpacePose;
+    }
+
     public DriverKey<VariableDriver<LocalSpacePose>> getPerTickCalculatedPoseDriverKey() {
         return this.perTickCalculatedPoseDriverKey;
     }
@@ -9,24 +9,49 @@ import net.minecraft.client.model.geom.PartPose;
 import net.minecraft.resources.ResourceLocation;
 import org.joml.*;
 
+/**
+ * Transform and visibility of a single joint.
+ * <p>
+ * The transform is stored decomposed as a translation, rotation quaternion and scale, which is what blending operates on.
+ * The equivalent matrix is only built when it is requested, and is cached until the transform changes.
+ */
 public final class JointChannel {
 
-    private final Matrix4f transform;
+    private final Vector3f translation;
+    private final Quaternionf rotation;
+    private final Vector3f scale;
     private boolean visibility;
 
+    private final Matrix4f transform;
+    private boolean transformDirty;
+
     public static final JointChannel ZERO = JointChannel.ofPartPose(PartPose.ZERO);
 
-    private JointChannel(Matrix4f transform, boolean visibility) {
-        this.transform = transform;
+    private JointChannel(Vector3f translation, Quaternionf rotation, Vector3f scale, boolean visibility) {
+        this.translation = translation;
+        this.rotation = rotation;
+        this.scale = scale;
         this.visibility = visibility;
+        this.transform = new Matrix4f();
+        this.transformDirty = true;
     }
 
     public static JointChannel of(Matrix4f transform, boolean visibility){
-        return new JointChannel(new Matrix4f(transform), visibility);
+        return new JointChannel(
+                transform.getTranslation(new Vector3f()),
+                transform.getNormalizedRotation(new Quaternionf()),
+                transform.getScale(new Vector3f()),
+                visibility
+        );
     }
 
     public static JointChannel of(JointChannel jointChannel){
-        return JointChannel.of(jointChannel.transform, jointChannel.visibility);
+        return new JointChannel(
+                new Vector3f(jointChannel.translation),
+                new Quaternionf(jointChannel.rotation),
+                new Vector3f(jointChannel.scale),
+                jointChannel.visibility
+        );
     }
 
     public static JointChannel ofPartPose(PartPose partPose){
@@ -38,11 +63,29 @@ public final class JointChannel {
     }
 
     public static JointChannel ofTranslationRotationScaleQuaternion(Vector3f translation, Quaternionf rotation, Vector3f scale, boolean visibility){
-        return of(new Matrix4f().translationRotateScale(translation, rotation, scale), visibility);
+        return new JointChannel(new Vector3f(translation), new Quaternionf(rotation), new Vector3f(scale), visibility);
     }
 
+    /**
+     * Returns a copy of the transform as a matrix.
+     */
     public Matrix4f getTransform() {
-        return new Matrix4f(this.transform);
+        return new Matrix4f(this.getCachedTransform());
+    }
+
+    private Matrix4f getCachedTransform() {
+        if (this.transformDirty) {
+            this.transform.translationRotateScale(this.translation, this.rotation, this.scale);
+            this.transformDirty = false;
+        }
+        return this.transform;
+    }
+
+    private void setTransform(Matrix4f transform) {
+        transform.getTranslation(this.translation);
+        transform.getNormalizedRotation(this.rotation);
+        transform.getScale(this.scale);
+        this.transformDirty = true;
     }
 
     public boolean getVisibility() {
@@ -50,29 +93,28 @@ public final class JointChannel {
     }
 
     public Vector3f getTranslation() {
-        return this.transform.getTranslation(new Vector3f());
+        return new Vector3f(this.translation);
     }
 
     public Quaternionf getRotation() {
-        return this.transform.getNormalizedRotation(new Quaternionf());
+        return this.rotation.normalize(new Quaternionf());
     }
 
     public Vector3f getEulerRotationZYX() {
-        return this.transform.getEulerAnglesZYX(new Vector3f());
+        return this.getCachedTransform().getEulerAnglesZYX(new Vector3f());
     }
 
     public Vector3f getScale() {
-        return this.transform.getScale(new Vector3f());
+        return new Vector3f(this.scale);
     }
 
     public PartPose asPartPose(){
         Vector3f rotation = this.getEulerRotationZYX();
-        Vector3f translation = this.getTranslation();
         return PartPose
                 .offsetAndRotation(
-                        translation.x(),
-                        translation.y(),
-                        translation.z(),
+                        this.translation.x(),
+                        this.translation.y(),
+                        this.translation.z(),
                         rotation.x(),
                         rotation.y(),
                         rotation.z()
@@ -84,78 +126,117 @@ public final class JointChannel {
             case ADD -> {
                 if(translation.x() != 0 || translation.y() != 0 || translation.z() != 0){
                     switch (transformSpace){
-                        case LOCAL -> this.transform.translate(translation);
-                        case COMPONENT, PARENT -> this.transform.translateLocal(translation);
+                        case LOCAL -> {
+                            Vector3f localTranslation = translation.mul(this.scale, new Vector3f());
+                            this.translation.add(this.rotation.transform(localTranslation));
+                        }
+                        case COMPONENT, PARENT -> this.translation.add(translation);
                     }
                 }
             }
-            case REPLACE -> this.transform.setTranslation(translation);
+            case REPLACE -> this.translation.set(translation);
         }
+        this.transformDirty = true;
     }
 
     public void rotate(Quaternionf rotation, TransformSpace transformSpace, TransformType transformType) {
         switch (transformType){
             case ADD -> {
                 switch (transformSpace){
-                    //case COMPONENT, PARENT -> this.transform.rotation(this.transform.getNormalizedRotation(new Quaternionf()).premul(rotation));
-                    case LOCAL -> this.transform.rotate(rotation);
-                    case COMPONENT, PARENT -> {
-                        Quaternionf currentRotation = this.transform.getUnnormalizedRotation(new Quaternionf());
-                        rotation.mul(currentRotation, currentRotation);
-                        this.transform.translationRotateScale(this.getTranslation(), currentRotation, this.getScale());
-                    }
+                    case LOCAL -> this.rotation.mul(rotation);
+                    case COMPONENT, PARENT -> this.rotation.premul(rotation);
                 }
             }
-            case REPLACE -> this.transform.translationRotateScale(this.getTranslation(), rotation, this.getScale());
+            case REPLACE -> this.rotation.set(rotation);
         }
+        this.transformDirty = true;
     }
 
     public void scale(Vector3f scale, TransformSpace transformSpace, TransformType transformType) {
         switch (transformType){
             case ADD -> {
                 switch (transformSpace){
-                    //case COMPONENT, PARENT -> this.transform.rotation(this.transform.getNormalizedRotation(new Quaternionf()).premul(rotation));
-                    case LOCAL -> this.transform.scale(scale);
-                    case COMPONENT, PARENT -> this.transform.scaleLocal(scale.x, scale.y, scale.z);
-
+                    case LOCAL -> this.scale.mul(scale);
+                    case COMPONENT, PARENT -> this.setTransform(this.getCachedTransform().scaleLocal(scale.x, scale.y, scale.z, new Matrix4f()));
                 }
             }
-            case REPLACE -> {
-                Matrix4f matrix4f = new Matrix4f().identity();
-                matrix4f.translationRotateScale(this.getTranslation(), this.getRotation(), scale);
-
-                this.transform.set(matrix4f);
-                //this.transform.translationRotateScale(this.getTranslation(), this.getRotation(), scale);
-            }
+            case REPLACE -> this.scale.set(scale);
         }
+        this.transformDirty = true;
     }
 
     public void rotate(Vector3f rotationEuler, TransformSpace transformSpace, TransformType transformType) {
         this.rotate(new Quaternionf().rotationXYZ(rotationEuler.x(), rotationEuler.y(), rotationEuler.z()), transformSpace, transformType);
     }
 
+    /**
+     * Multiplies this joint channel by another, composing the decomposed transforms directly. If the transform applied
+     * last has a non-uniform scale, which would shear the other rotation, the matrices are multiplied instead.
+     * <p>
+     * Component and parent space apply the other transform first, local space applies it last.
+     */
     public void multiply(JointChannel other, TransformSpace transformSpace) {
-        this.multiply(other.transform, transformSpace);
+        switch (transformSpace) {
+            case COMPONENT, PARENT -> this.compose(this, other);
+            case LOCAL -> this.compose(other, this);
+        }
     }
 
     public void multiply(Matrix4f transform, TransformSpace transformSpace) {
+        Matrix4f result = new Matrix4f(this.getCachedTransform());
         switch (transformSpace) {
-            case COMPONENT, PARENT -> this.transform.mul(transform);
-            case LOCAL -> this.transform.mulLocal(transform);
+            case COMPONENT, PARENT -> result.mul(transform);
+            case LOCAL -> result.mulLocal(transform);
+        }
+        this.setTransform(result);
+    }
+
+    private void compose(JointChannel first, JointChannel second) {
+        if (!first.hasUniformScale()) {
+            Matrix4f transform = new Matrix4f(first.getCachedTransform()).mul(second.getCachedTransform());
+            this.setTransform(transform);
+            return;
         }
+        // t = t1 + r1 * (s1 * t2), r = r1 * r2, s = s1 * s2
+        float translationX = second.translation.x() * first.scale.x();
+        float translationY = second.translation.y() * first.scale.y();
+        float translationZ = second.translation.z() * first.scale.z();
+        Vector3f translation = first.rotation.transform(translationX, translationY, translationZ, new Vector3f()).add(first.translation);
+        Quaternionf rotation = first.rotation.mul(second.rotation, new Quaternionf());
+        Vector3f scale = first.scale.mul(second.scale, new Vector3f());
+
+        this.translation.set(translation);
+        this.rotation.set(rotation);
+        this.scale.set(scale);
+        this.transformDirty = true;
     }
 
+    /**
+     * Inverts the transform, through the decomposed transform if the scale is uniform and as a matrix otherwise.
+     */
     public void invert() {
-        this.transform.invert();
+        if (!this.hasUniformScale()) {
+            this.setTransform(new Matrix4f(this.getCachedTransform()).invert());
+            return;
+        }
+        this.rotation.conjugate();
+        this.scale.set(1f / this.scale.x(), 1f / this.scale.y(), 1f / this.scale.z());
+        this.rotation.transform(this.translation.negate()).mul(this.scale);
+        this.transformDirty = true;
     }
 
-    private static final Quaternionf QUATERNION_CACHE = new Quaternionf();
-    private static final Vector3f VECTOR_CACHE = new Vector3f();
+    private boolean hasUniformScale() {
+        return this.scale.x() == this.scale.y() && this.scale.x() == this.scale.z();
+    }
 
     public JointChannel mirrored() {
-        Vector3f mirroredTranslation = this.getTranslation().mul(-1, 1, 1);
-        Vector3f mirroredRotation = this.transform.getUnnormalizedRotation(QUATERNION_CACHE).getEulerAnglesZYX(VECTOR_CACHE).mul(1, -1, -1);
-        return JointChannel.ofTranslationRotationScaleEuler(mirroredTranslation, mirroredRotation, this.getScale(), this.visibility);
+        // Mirroring across the YZ plane negates the X translation and the Y and Z rotation axes.
+        return new JointChannel(
+                this.translation.mul(-1, 1, 1, new Vector3f()),
+                new Quaternionf(this.rotation.x(), -this.rotation.y(), -this.rotation.z(), this.rotation.w()),
+                new Vector3f(this.scale),
+                this.visibility
+        );
     }
 
     /**
@@ -165,21 +246,11 @@ public final class JointChannel {
      * @param destination       Channel to save interpolated channel onto.
      */
     public JointChannel interpolate(JointChannel other, float weight, JointChannel destination) {
-        Vector3f translation = this.transform.getTranslation(new Vector3f());
-        Quaternionf rotation = this.transform.getUnnormalizedRotation(new Quaternionf());
-        Vector3f scale = this.transform.getScale(new Vector3f());
-
-        Vector3f otherTranslation = other.transform.getTranslation(new Vector3f());
-        Quaternionf otherRotation = other.transform.getUnnormalizedRotation(new Quaternionf());
-        Vector3f otherScale = other.transform.getScale(new Vector3f());
-
-        translation.lerp(otherTranslation, weight);
-        rotation.slerp(otherRotation, weight);
-        scale.lerp(otherScale, weight);
-        boolean visibility = Interpolator.BOOLEAN_BLEND.interpolate(this.visibility, other.visibility, weight);
-
-        destination.transform.translationRotateScale(translation, rotation, scale);
-        destination.visibility = visibility;
+        this.translation.lerp(other.translation, weight, destination.translation);
+        this.rotation.slerp(other.rotation, weight, destination.rotation);
+        this.scale.lerp(other.scale, weight, destination.scale);
+        destination.visibility = Interpolator.BOOLEAN_BLEND.interpolate(this.visibility, other.visibility, weight);
+        destination.transformDirty = true;
         return destination;
     }
 
@@ -193,8 +264,8 @@ public final class JointChannel {
     }
 
     public void transformPoseStack(PoseStack poseStack, float transformMultiplier) {
-        Matrix4f matrix4f = new Matrix4f(this.transform);
-        poseStack.mulPose(matrix4f.setTranslation(this.getTranslation().div(new Vector3f(transformMultiplier))));
+        Matrix4f matrix4f = this.getTransform();
+        poseStack.mulPose(matrix4f.setTranslation(this.getTranslation().div(transformMultiplier)));
 
         //Vector3f translation = this.getTranslation();
         //poseStack.translate(translation.x() / transformMultiplier, (translation.y() / transformMultiplier), (translation.z() / transformMultiplier));
@@ -19,10 +19,82 @@ public class JointSkeleton {
     private final String rootJoint;
     private final Map<String, Float> customAttributeDefaults;
 
+    private final List<String> jointNames;
+    private final Map<String, Integer> jointIndices;
+    private final int[] jointParentIndices;
+    private final int[] jointChildrenStartIndices;
+    private final int[] jointChildrenCounts;
+    private final int[] mirrorJointIndices;
+    private final List<String> customAttributeNames;
+    private final Map<String, Integer> customAttributeIndices;
+    private final float[] customAttributeDefaultValues;
+
     private JointSkeleton(Map<String, JointConfiguration> joints, String rootJoint, Map<String, Float> customAttributeDefaults){
         this.joints = joints;
         this.rootJoint = rootJoint;
         this.customAttributeDefaults = customAttributeDefaults;
+
+        // Compile the hierarchy into dense joint ordinals. Joints are ordered breadth-first from the root, so every parent
+        // comes before its children and the children of each joint occupy a contiguous range of ordinals.
+        this.jointNames = new ArrayList<>(joints.size());
+        this.jointIndices = Maps.newHashMapWithExpectedSize(joints.size());
+        List<Integer> parentIndices = new ArrayList<>(joints.size());
+        List<Integer> childrenStartIndices = new ArrayList<>(joints.size());
+        List<Integer> childrenCounts = new ArrayList<>(joints.size());
+        List<String> traversalRoots = new ArrayList<>(joints.size());
+        if (joints.containsKey(rootJoint)) {
+            traversalRoots.add(rootJoint);
+        }
+        traversalRoots.addAll(joints.keySet());
+        for (String traversalRoot : traversalRoots) {
+            if (this.jointIndices.containsKey(traversalRoot)) {
+                continue;
+            }
+            // Joints that cannot be reached from the root through child lists are not dropped. They are kept in the index
+            // tables after the root's hierarchy as roots of their own, with no parent, so space conversion leaves their
+            // transforms as they are, the same as the recursive conversion did by never visiting them.
+            this.addJointOrdinal(traversalRoot);
+            parentIndices.add(-1);
+            for (int i = this.jointNames.size() - 1; i < this.jointNames.size(); i++) {
+                childrenStartIndices.add(this.jointNames.size());
+                int childrenCount = 0;
+                for (String child : joints.get(this.jointNames.get(i)).children()) {
+                    if (joints.containsKey(child) && !this.jointIndices.containsKey(child)) {
+                        this.addJointOrdinal(child);
+                        parentIndices.add(i);
+                        childrenCount++;
+                    }
+                }
+                childrenCounts.add(childrenCount);
+            }
+        }
+
+        int jointCount = this.jointNames.size();
+        this.jointParentIndices = new int[jointCount];
+        this.jointChildrenStartIndices = new int[jointCount];
+        this.jointChildrenCounts = new int[jointCount];
+        this.mirrorJointIndices = new int[jointCount];
+        for (int i = 0; i < jointCount; i++) {
+            this.jointParentIndices[i] = parentIndices.get(i);
+            this.jointChildrenStartIndices[i] = childrenStartIndices.get(i);
+            this.jointChildrenCounts[i] = childrenCounts.get(i);
+            int mirrorJointIndex = this.getJointIndex(joints.get(this.jointNames.get(i)).mirrorJoint());
+            this.mirrorJointIndices[i] = mirrorJointIndex != -1 ? mirrorJointIndex : i;
+        }
+
+        this.customAttributeNames = List.copyOf(customAttributeDefaults.keySet());
+        this.customAttributeIndices = Maps.newHashMapWithExpectedSize(this.customAttributeNames.size());
+        this.customAttributeDefaultValues = new float[this.customAttributeNames.size()];
+        for (int i = 0; i < this.customAttributeNames.size(); i++) {
+            String customAttribute = this.customAttributeNames.get(i);
+            this.customAttributeIndices.put(customAttribute, i);
+            this.customAttributeDefaultValues[i] = customAttributeDefaults.get(customAttribute);
+        }
+    }
+
+    private void addJointOrdinal(String joint) {
+        this.jointIndices.put(joint, this.jointNames.size());
+        this.jointNames.add(joint);
     }
 
     /**
@@ -46,6 +118,38 @@ public class JointSkeleton {
         return this.customAttributeDefaults.containsKey(customAttributeName);
     }
 
+    /**
+     * Returns the number of custom attributes defined by the skeleton.
+     */
+    public int getCustomAttributeCount() {
+        return this.customAttributeNames.size();
+    }
+
+    /**
+     * Returns the ordinal of the supplied custom attribute, or -1 if the skeleton does not define it.
+     * @param customAttributeName Custom attribute string identifier
+     */
+    public int getCustomAttributeIndex(String customAttributeName) {
+        Integer index = this.customAttributeIndices.get(customAttributeName);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Returns the string identifier of the custom attribute with the supplied ordinal.
+     * @param customAttributeIndex Custom attribute ordinal
+     */
+    public String getCustomAttributeName(int customAttributeIndex) {
+        return this.customAttributeNames.get(customAttributeIndex);
+    }
+
+    /**
+     * Returns the default value of the custom attribute with the supplied ordinal.
+     * @param customAttributeIndex Custom attribute ordinal
+     */
+    public float getCustomAttributeDefaultValue(int customAttributeIndex) {
+        return this.customAttributeDefaultValues[customAttributeIndex];
+    }
+
     /**
      * Returns a list of joint identifiers that are direct children of the supplied joint.
      * @param joint Joint to search for children of.
@@ -111,6 +215,68 @@ public class JointSkeleton {
         return this.joints.containsKey(joint);
     }
 
+    /**
+     * Returns the number of joints in the skeleton.
+     */
+    public int getJointCount() {
+        return this.jointNames.size();
+    }
+
+    /**
+     * Returns the ordinal of the supplied joint, or -1 if the joint is not part of the skeleton.
+     * <p>
+     * Joint ordinals are assigned once when the skeleton is built and are used to index pose data. Parents always have
+     * a lower ordinal than their children, so iterating from 0 to {@link JointSkeleton#getJointCount()} visits joints
+     * in an order where every parent is evaluated before its children.
+     * @param joint Joint string identifier
+     */
+    public int getJointIndex(String joint) {
+        Integer index = joint != null ? this.jointIndices.get(joint) : null;
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Returns the string identifier of the joint with the supplied ordinal.
+     * @param jointIndex Joint ordinal
+     */
+    public String getJointName(int jointIndex) {
+        return this.jointNames.get(jointIndex);
+    }
+
+    /**
+     * Returns the ordinal of the parent of the supplied joint, or -1 if the joint has no parent, being the root joint or
+     * a joint that cannot be reached from the root.
+     * @param jointIndex Joint ordinal
+     */
+    public int getParentJointIndex(int jointIndex) {
+        return this.jointParentIndices[jointIndex];
+    }
+
+    /**
+     * Returns the ordinal of the first direct child of the supplied joint. Direct children occupy the ordinals from this
+     * index up to the index plus {@link JointSkeleton#getChildJointCount(int)}.
+     * @param jointIndex Joint ordinal
+     */
+    public int getFirstChildJointIndex(int jointIndex) {
+        return this.jointChildrenStartIndices[jointIndex];
+    }
+
+    /**
+     * Returns the number of direct children of the supplied joint.
+     * @param jointIndex Joint ordinal
+     */
+    public int getChildJointCount(int jointIndex) {
+        return this.jointChildrenCounts[jointIndex];
+    }
+
+    /**
+     * Returns the ordinal of the mirror joint of the supplied joint, or the joint itself if it has no mirror joint.
+     * @param jointIndex Joint ordinal
+     */
+    public int getMirrorJointIndex(int jointIndex) {
+        return this.mirrorJointIndices[jointIndex];
+    }
+
     public static class Builder {
 
         private final Map<String, JointConfiguration> joints;
@@ -134,7 +300,6 @@ public class JointSkeleton {
         }
 
         public JointSkeleton build(){
-            HashMap<String, JointConfiguration> jointsBuilt = Maps.newHashMap();
             return new JointSkeleton(this.joints, this.rootJoint, this.customAttributeDefaults);
         }
     }
@@ -1,5 +1,7 @@
 package com.trainguy9512.locomotion.animation.joint.skeleton;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 public abstract class SkeletonPropertyDefinition<D> {
@@ -9,6 +11,8 @@ public abstract class SkeletonPropertyDefinition<D> {
     protected final boolean isMirrored;
     protected final D defaultValue;
 
+    private volatile CompiledProperties<D> compiledProperties;
+
     protected SkeletonPropertyDefinition(Map<String, D> jointProperties, Map<String, D> customAttributeProperties, boolean mirrored, D defaultValue) {
         this.jointProperties = jointProperties;
         this.customAttributeProperties = customAttributeProperties;
@@ -33,5 +37,45 @@ public abstract class SkeletonPropertyDefinition<D> {
         return this.customAttributeProperties.getOrDefault(customAttributeName, this.defaultValue);
     }
 
+    /**
+     * Retrieves the property of a joint by its ordinal within the provided skeleton.
+     * <p>
+     * Properties are resolved for every joint of the skeleton on first use, so repeated lookups are a single array access.
+     * @param jointIndex            Joint ordinal
+     * @param skeleton              Skeleton the joint ordinal belongs to
+     */
+    public D getJointProperty(int jointIndex, JointSkeleton skeleton) {
+        return this.getCompiledProperties(skeleton).jointProperties().get(jointIndex);
+    }
+
+    /**
+     * Retrieves the property of a custom attribute by its ordinal within the provided skeleton.
+     * @param customAttributeIndex  Custom attribute ordinal
+     * @param skeleton              Skeleton the custom attribute ordinal belongs to
+     */
+    public D getCustomAttributeProperty(int customAttributeIndex, JointSkeleton skeleton) {
+        return this.getCompiledProperties(skeleton).customAttributeProperties().get(customAttributeIndex);
+    }
+
+    private CompiledProperties<D> getCompiledProperties(JointSkeleton skeleton) {
+        CompiledProperties<D> compiledProperties = this.compiledProperties;
+        if (compiledProperties == null || compiledProperties.skeleton() != skeleton) {
+            List<D> jointProperties = new ArrayList<>(skeleton.getJointCount());
+            for (int i = 0; i < skeleton.getJointCount(); i++) {
+                jointProperties.add(this.getJointProperty(skeleton.getJointName(i), skeleton));
+            }
+            List<D> customAttributeProperties = new ArrayList<>(skeleton.getCustomAttributeCount());
+            for (int i = 0; i < skeleton.getCustomAttributeCount(); i++) {
+                customAttributeProperties.add(this.getCustomAttributeProperty(skeleton.getCustomAttributeName(i), skeleton));
+            }
+            compiledProperties = new CompiledProperties<>(skeleton, jointProperties, customAttributeProperties);
+            this.compiledProperties = compiledProperties;
+        }
+        return compiledProperties;
+    }
+
     public abstract SkeletonPropertyDefinition<D> getMirrored();
+
+    private record CompiledProperties<D>(JointSkeleton skeleton, List<D> jointProperties, List<D> customAttributeProperties) {
+    }
 }
@@ -3,15 +3,42 @@ package com.trainguy9512.locomotion.animation.pose;
 import com.trainguy9512.locomotion.animation.joint.skeleton.JointSkeleton;
 import com.trainguy9512.locomotion.animation.joint.JointChannel;
 import org.joml.Matrix4f;
+import org.joml.Quaternionfc;
+import org.joml.Vector3fc;
 
+/**
+ * Animation pose where every joint transform is relative to the root of the model rather than its parent joint.
+ * <p>
+ * Alongside the decomposed joint data, the pose keeps a palette of component space matrices that is filled in when
+ * converting from local space. The palette is reused between conversions, so a component space pose can be kept around
+ * and converted into every frame without allocating.
+ */
 public class ComponentSpacePose extends Pose {
 
+    private final Matrix4f[] jointTransforms;
+    private boolean jointTransformsValid;
+    private final Matrix4f inverseParentTransform;
+
     private ComponentSpacePose(JointSkeleton jointSkeleton) {
         super(jointSkeleton);
+        this.jointTransforms = createJointTransforms(jointSkeleton);
+        this.jointTransformsValid = false;
+        this.inverseParentTransform = new Matrix4f();
     }
 
     private ComponentSpacePose(Pose pose){
         super(pose);
+        this.jointTransforms = createJointTransforms(pose.getJointSkeleton());
+        this.jointTransformsValid = false;
+        this.inverseParentTransform = new Matrix4f();
+    }
+
+    private static Matrix4f[] createJointTransforms(JointSkeleton jointSkeleton) {
+        Matrix4f[] jointTransforms = new Matrix4f[jointSkeleton.getJointCount()];
+        for (int i = 0; i < jointTransforms.length; i++) {
+            jointTransforms[i] = new Matrix4f();
+        }
+        return jointTransforms;
     }
 
 
@@ -35,15 +62,125 @@ public class ComponentSpacePose extends Pose {
      * @return                      Joint transform
      */
     public JointChannel getComponentSpaceTransform(String joint){
-        return JointChannel.of(this.jointChannels.getOrDefault(joint, JointChannel.ZERO));
+        return this.getJointChannel(joint);
+    }
+
+    /**
+     * Overwrites this pose with the provided local space pose converted to component space.
+     * <p>
+     * Joints are visited in the skeleton's parent-before-child order, so each joint's matrix is its parent's
+     * already-converted matrix multiplied by its local transform.
+     * @param localSpacePose        Local space pose to convert
+     */
+    void loadFromLocalSpace(LocalSpacePose localSpacePose) {
+        System.arraycopy(localSpacePose.visibilities, 0, this.visibilities, 0, this.visibilities.length);
+        System.arraycopy(localSpacePose.customAttributeValues, 0, this.customAttributeValues, 0, this.customAttributeValues.length);
+        for (int joint = 0; joint < this.jointTransforms.length; joint++) {
+            Matrix4f jointTransform = localSpacePose.getJointTransform(joint, this.jointTransforms[joint]);
+            int parent = this.jointSkeleton.getParentJointIndex(joint);
+            if (parent != -1) {
+                jointTransform.mulLocal(this.jointTransforms[parent]);
+            }
+            this.setJointTransform(joint, jointTransform);
+        }
+        this.jointTransformsValid = true;
     }
 
     /**
      * Creates a local space pose from this component space pose.
      */
     public LocalSpacePose convertedToLocalSpace(){
-        LocalSpacePose pose = LocalSpacePose.of(this);
-        pose.convertChildrenJointsToLocalSpace(this.getJointSkeleton().getRootJoint(), new Matrix4f());
-        return pose;
+        return this.convertedToLocalSpace(LocalSpacePose.of(this.jointSkeleton));
+    }
+
+    /**
+     * Converts this component space pose to local space, writing the result onto the provided pose.
+     * @param destination           Pose to save the local space pose onto.
+     * @return                      Destination pose
+     */
+    public LocalSpacePose convertedToLocalSpace(LocalSpacePose destination){
+        this.ensureJointTransforms();
+        System.arraycopy(this.visibilities, 0, destination.visibilities, 0, this.visibilities.length);
+        System.arraycopy(this.customAttributeValues, 0, destination.customAttributeValues, 0, this.customAttributeValues.length);
+        for (int joint = 0; joint < this.jointTransforms.length; joint++) {
+            int parent = this.jointSkeleton.getParentJointIndex(joint);
+            if (parent == -1) {
+                destination.setJointTransform(joint, this.jointTransforms[joint]);
+            } else {
+                destination.setJointTransform(joint, this.jointTransforms[parent].invert(this.inverseParentTransform).mul(this.jointTransforms[joint]));
+            }
+        }
+        return destination;
+    }
+
+    private void ensureJointTransforms() {
+        if (!this.jointTransformsValid) {
+            for (int joint = 0; joint < this.jointTransforms.length; joint++) {
+                super.getJointTransform(joint, this.jointTransforms[joint]);
+            }
+            this.jointTransformsValid = true;
+        }
+    }
+
+    @Override
+    public Matrix4f getJointTransform(int jointIndex, Matrix4f destination) {
+        if (this.jointTransformsValid) {
+            return destination.set(this.jointTransforms[jointIndex]);
+        }
+        return super.getJointTransform(jointIndex, destination);
+    }
+
+    @Override
+    public <P extends Pose> P copyFrom(Pose other) {
+        this.jointTransformsValid = false;
+        return super.copyFrom(other);
+    }
+
+    @Override
+    public void setJointChannel(int jointIndex, JointChannel jointChannel) {
+        this.jointTransformsValid = false;
+        super.setJointChannel(jointIndex, jointChannel);
+    }
+
+    @Override
+    public void setJointTranslation(int jointIndex, Vector3fc translation) {
+        this.jointTransformsValid = false;
+        super.setJointTranslation(jointIndex, translation);
+    }
+
+    @Override
+    public void setJointRotation(int jointIndex, Quaternionfc rotation) {
+        this.jointTransformsValid = false;
+        super.setJointRotation(jointIndex, rotation);
+    }
+
+    @Override
+    public void setJointScale(int jointIndex, Vector3fc scale) {
+        this.jointTransformsValid = false;
+        super.setJointScale(jointIndex, scale);
+    }
+
+    @Override
+    public void setJointTranslation(int jointIndex, float x, float y, float z) {
+        this.jointTransformsValid = false;
+        super.setJointTranslation(jointIndex, x, y, z);
+    }
+
+    @Override
+    public void setJointRotation(int jointIndex, float x, float y, float z, float w) {
+        this.jointTransformsValid = false;
+        super.setJointRotation(jointIndex, x, y, z, w);
+    }
+
+    @Override
+    public void setJointScale(int jointIndex, float x, float y, float z) {
+        this.jointTransformsValid = false;
+        super.setJointScale(jointIndex, x, y, z);
+    }
+
+    @Override
+    public void setJointToIdentity(int jointIndex) {
+        this.jointTransformsValid = false;
+        super.setJointToIdentity(jointIndex);
     }
 }
@@ -1,6 +1,5 @@
 package com.trainguy9512.locomotion.animation.pose;
 
-import com.mojang.blaze3d.vertex.PoseStack;
 import com.trainguy9512.locomotion.animation.joint.skeleton.BlendMask;
 import com.trainguy9512.locomotion.animation.joint.skeleton.JointSkeleton;
 import com.trainguy9512.locomotion.animation.joint.JointChannel;
@@ -8,9 +7,21 @@ import com.trainguy9512.locomotion.util.Interpolator;
 import com.trainguy9512.locomotion.util.Transition;
 import net.minecraft.util.Mth;
 import org.jetbrains.annotations.Nullable;
+import org.joml.Matrix4f;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
 
 public class LocalSpacePose extends Pose {
 
+    private final Vector3f translationScratch = new Vector3f();
+    private final Quaternionf rotationScratch = new Quaternionf();
+    private final Vector3f scaleScratch = new Vector3f();
+    private final Vector3f otherTranslationScratch = new Vector3f();
+    private final Quaternionf otherRotationScratch = new Quaternionf();
+    private final Vector3f otherScaleScratch = new Vector3f();
+    private final Matrix4f transformScratch = new Matrix4f();
+    private final Matrix4f otherTransformScratch = new Matrix4f();
+
     private LocalSpacePose(JointSkeleton jointSkeleton) {
         super(jointSkeleton);
     }
@@ -35,22 +46,59 @@ public class LocalSpacePose extends Pose {
     }
 
     /**
-     * Creates a local space pose from this component space pose.
+     * Creates a component space pose from this local space pose.
      */
     public ComponentSpacePose convertedToComponentSpace() {
-        ComponentSpacePose pose = ComponentSpacePose.of(this);
-        pose.convertChildrenJointsToComponentSpace(this.getJointSkeleton().getRootJoint(), new PoseStack());
-        return pose;
+        return this.convertedToComponentSpace(ComponentSpacePose.of(this.jointSkeleton));
+    }
+
+    /**
+     * Converts this local space pose to component space, writing the result onto the provided pose.
+     * @param destination       Pose to save the component space pose onto.
+     * @return                  Destination pose
+     */
+    public ComponentSpacePose convertedToComponentSpace(ComponentSpacePose destination) {
+        destination.loadFromLocalSpace(this);
+        return destination;
     }
 
+    /**
+     * Creates a mirrored copy of this pose.
+     */
     public LocalSpacePose mirrored() {
-        LocalSpacePose mirroredPose = new LocalSpacePose(this);
-        this.jointChannels.keySet().forEach(joint -> {
-            JointSkeleton.JointConfiguration configuration = this.getJointSkeleton().getJointConfiguration(joint);
-            String mirrorJoint = configuration.mirrorJoint() != null ? configuration.mirrorJoint() : joint;
-            JointChannel mirroredTransform = this.getJointChannel(mirrorJoint).mirrored();
-            mirroredPose.setJointChannel(joint, mirroredTransform);
-        });
+        return this.mirrored(new LocalSpacePose(this.jointSkeleton));
+    }
+
+    /**
+     * Mirrors this pose, writing the result onto the provided pose.
+     * @param mirroredPose      Pose to save the mirrored pose onto. Must not be this pose.
+     * @return                  Mirrored pose
+     */
+    public LocalSpacePose mirrored(LocalSpacePose mirroredPose) {
+        if (mirroredPose == this) {
+            throw new IllegalArgumentException("Cannot mirror a pose onto itself.");
+        }
+        mirroredPose.copyCustomAttributesFrom(this);
+        for (int joint = 0; joint < this.jointSkeleton.getJointCount(); joint++) {
+            int mirrorJoint = this.jointSkeleton.getMirrorJointIndex(joint);
+
+            // Mirroring across the YZ plane negates the X translation and the Y and Z rotation axes.
+            int translationOffset = joint * TRANSLATION_STRIDE;
+            int mirrorTranslationOffset = mirrorJoint * TRANSLATION_STRIDE;
+            mirroredPose.translations[translationOffset] = -this.translations[mirrorTranslationOffset];
+            mirroredPose.translations[translationOffset + 1] = this.translations[mirrorTranslationOffset + 1];
+            mirroredPose.translations[translationOffset + 2] = this.translations[mirrorTranslationOffset + 2];
+
+            int rotationOffset = joint * ROTATION_STRIDE;
+            int mirrorRotationOffset = mirrorJoint * ROTATION_STRIDE;
+            mirroredPose.rotations[rotationOffset] = this.rotations[mirrorRotationOffset];
+            mirroredPose.rotations[rotationOffset + 1] = -this.rotations[mirrorRotationOffset + 1];
+            mirroredPose.rotations[rotationOffset + 2] = -this.rotations[mirrorRotationOffset + 2];
+            mirroredPose.rotations[rotationOffset + 3] = this.rotations[mirrorRotationOffset + 3];
+
+            System.arraycopy(this.scales, mirrorJoint * SCALE_STRIDE, mirroredPose.scales, joint * SCALE_STRIDE, SCALE_STRIDE);
+            mirroredPose.visibilities[joint] = this.visibilities[mirrorJoint];
+        }
         return mirroredPose;
     }
 
@@ -112,27 +160,21 @@ public class LocalSpacePose extends Pose {
             LocalSpacePose destination
     ) {
         if (weight == 0) {
-            return destination;
+            return destination == this ? destination : destination.copyFrom(this);
         }
-        for (String customAttribute : this.jointSkeleton.getCustomAttributes()) {
+        for (int customAttribute = 0; customAttribute < this.customAttributeValues.length; customAttribute++) {
             float attributeWeight = weight;
             if (blendMask != null) {
                 attributeWeight *= blendMask.getCustomAttributeProperty(customAttribute, this.jointSkeleton);
             }
-            float customAttributeA = this.customAttributes.get(customAttribute);
-            float customAttributeB = other.customAttributes.get(customAttribute);
-            destination.customAttributes.put(customAttribute, Interpolator.FLOAT.interpolate(customAttributeA, customAttributeB, attributeWeight));
+            destination.customAttributeValues[customAttribute] = Interpolator.FLOAT.interpolate(this.customAttributeValues[customAttribute], other.customAttributeValues[customAttribute], attributeWeight);
         }
-        for (String joint : this.jointSkeleton.getJoints()) {
+        for (int joint = 0; joint < this.jointSkeleton.getJointCount(); joint++) {
             float jointWeight = weight;
             if (blendMask != null) {
                 jointWeight *= blendMask.getJointProperty(joint, this.jointSkeleton);
             }
-            if (jointWeight == 1f) {
-                destination.setJointChannel(joint, other.getJointChannel(joint));
-            } else {
-                destination.setJointChannel(joint, destination.getJointChannel(joint).interpolate(other.getJointChannel(joint), jointWeight));
-            }
+            this.interpolateJoint(other, joint, jointWeight, destination);
         }
         return destination;
     }
@@ -154,9 +196,9 @@ public class LocalSpacePose extends Pose {
             LocalSpacePose destination
     ) {
         if (time == 0) {
-            return destination;
+            return destination == this ? destination : destination.copyFrom(this);
         }
-        for (String customAttribute : this.jointSkeleton.getCustomAttributes()) {
+        for (int customAttribute = 0; customAttribute < this.customAttributeValues.length; customAttribute++) {
             float attributeTime = time;
             if (transition.blendProfile() != null) {
                 attributeTime /= transition.blendProfile().getCustomAttributeProperty(customAttribute, this.jointSkeleton);
@@ -166,11 +208,9 @@ public class LocalSpacePose extends Pose {
             if (blendMask != null) {
                 attributeTime *= blendMask.getCustomAttributeProperty(customAttribute, this.jointSkeleton);
             }
-            float customAttributeA = this.customAttributes.get(customAttribute);
-            float customAttributeB = other.customAttributes.get(customAttribute);
-            destination.customAttributes.put(customAttribute, Interpolator.FLOAT.interpolate(customAttributeA, customAttributeB, attributeTime));
+            destination.customAttributeValues[customAttribute] = Interpolator.FLOAT.interpolate(this.customAttributeValues[customAttribute], other.customAttributeValues[customAttribute], attributeTime);
         }
-        for (String joint : this.jointSkeleton.getJoints()) {
+        for (int joint = 0; joint < this.jointSkeleton.getJointCount(); joint++) {
             float jointTime = time;
             if (transition.blendProfile() != null) {
                 jointTime /= transition.blendProfile().getJointProperty(joint, this.jointSkeleton);
@@ -180,15 +220,37 @@ public class LocalSpacePose extends Pose {
             if (blendMask != null) {
                 jointTime *= blendMask.getJointProperty(joint, this.jointSkeleton);
             }
-            if (jointTime == 1f) {
-                destination.setJointChannel(joint, other.getJointChannel(joint));
-            } else {
-                destination.setJointChannel(joint, destination.getJointChannel(joint).interpolate(other.getJointChannel(joint), jointTime));
-            }
+            this.interpolateJoint(other, joint, jointTime, destination);
         }
         return destination;
     }
 
+    /**
+     * Interpolates a single joint between this pose and the provided pose, writing the result onto the destination pose.
+     */
+    private void interpolateJoint(LocalSpacePose other, int joint, float weight, LocalSpacePose destination) {
+        int translationOffset = joint * TRANSLATION_STRIDE;
+        int rotationOffset = joint * ROTATION_STRIDE;
+        int scaleOffset = joint * SCALE_STRIDE;
+        // Visibility is not blended, the other pose's visibility is always taken.
+        destination.visibilities[joint] = other.visibilities[joint];
+        if (weight == 1f) {
+            System.arraycopy(other.translations, translationOffset, destination.translations, translationOffset, TRANSLATION_STRIDE);
+            System.arraycopy(other.rotations, rotationOffset, destination.rotations, rotationOffset, ROTATION_STRIDE);
+            System.arraycopy(other.scales, scaleOffset, destination.scales, scaleOffset, SCALE_STRIDE);
+            return;
+        }
+        for (int i = 0; i < TRANSLATION_STRIDE; i++) {
+            destination.translations[translationOffset + i] = Mth.lerp(weight, this.translations[translationOffset + i], other.translations[translationOffset + i]);
+        }
+        for (int i = 0; i < SCALE_STRIDE; i++) {
+            destination.scales[scaleOffset + i] = Mth.lerp(weight, this.scales[scaleOffset + i], other.scales[scaleOffset + i]);
+        }
+        this.getJointRotation(joint, this.rotationScratch)
+                .slerp(other.getJointRotation(joint, this.otherRotationScratch), weight);
+        destination.setJointRotation(joint, this.rotationScratch);
+    }
+
     /**
      * Returns this animation pose interpolated between this pose and the provided pose using data from a transition.
      * @param other             Animation pose to interpolate to.
@@ -201,11 +263,78 @@ public class LocalSpacePose extends Pose {
         return this.interpolatedByTransition(other, time, transition, blendMask, this);
     }
 
+    /**
+     * Multiplies every joint transform of this pose by the matching joint transform of the provided pose.
+     * @param other             Pose to multiply by
+     * @param transformSpace    Space to multiply in. Component and parent space post-multiply, local space pre-multiplies.
+     */
     public void multiply(LocalSpacePose other, JointChannel.TransformSpace transformSpace) {
-        this.jointChannels.forEach((joint, channel) -> channel.multiply(other.jointChannels.get(joint), transformSpace));
+        for (int joint = 0; joint < this.jointSkeleton.getJointCount(); joint++) {
+            switch (transformSpace) {
+                case COMPONENT, PARENT -> this.composeJoint(joint, this, other);
+                case LOCAL -> this.composeJoint(joint, other, this);
+            }
+        }
+    }
+
+    /**
+     * Composes the transform of the joint in the first pose with the transform of the joint in the second pose,
+     * applying the second transform first, and writes the result onto this pose.
+     * <p>
+     * The decomposed transforms are composed directly when the first scale is uniform, which is exact. Otherwise the
+     * scale would shear the second rotation, so the transforms are multiplied as matrices and the result is decomposed.
+     */
+    private void composeJoint(int joint, LocalSpacePose first, LocalSpacePose second) {
+        first.getJointTranslation(joint, this.translationScratch);
+        first.getJointRotation(joint, this.rotationScratch);
+        first.getJointScale(joint, this.scaleScratch);
+        if (!isUniform(this.scaleScratch)) {
+            Matrix4f transform = first.getJointTransform(joint, this.transformScratch)
+                    .mul(second.getJointTransform(joint, this.otherTransformScratch));
+            this.setJointTransform(joint, transform);
+            return;
+        }
+
+        // t = t1 + r1 * (s1 * t2), r = r1 * r2, s = s1 * s2
+        Vector3f translation = second.getJointTranslation(joint, this.otherTranslationScratch)
+                .mul(this.scaleScratch)
+                .rotate(this.rotationScratch)
+                .add(this.translationScratch);
+        Quaternionf rotation = this.rotationScratch.mul(second.getJointRotation(joint, this.otherRotationScratch));
+        Vector3f scale = this.scaleScratch.mul(second.getJointScale(joint, this.otherScaleScratch));
+
+        this.setJointTranslation(joint, translation);
+        this.setJointRotation(joint, rotation);
+        this.setJointScale(joint, scale);
     }
 
+    /**
+     * Inverts every joint transform of this pose.
+     * <p>
+     * Joints with a uniform scale are inverted through their decomposed transform, which is exact. Joints with a
+     * non-uniform scale are inverted as matrices, since their inverse scales along rotated axes.
+     */
     public void invert() {
-        this.jointChannels.values().forEach(JointChannel::invert);
+        for (int joint = 0; joint < this.jointSkeleton.getJointCount(); joint++) {
+            Vector3f scale = this.getJointScale(joint, this.scaleScratch);
+            if (!isUniform(scale)) {
+                this.setJointTransform(joint, this.getJointTransform(joint, this.transformScratch).invert());
+                continue;
+            }
+            Quaternionf rotation = this.getJointRotation(joint, this.rotationScratch).conjugate();
+            scale.set(1f / scale.x(), 1f / scale.y(), 1f / scale.z());
+            Vector3f translation = this.getJointTranslation(joint, this.translationScratch)
+                    .negate()
+                    .rotate(rotation)
+                    .mul(scale);
+
+            this.setJointTranslation(joint, translation);
+            this.setJointRotation(joint, rotation);
+            this.setJointScale(joint, scale);
+        }
+    }
+
+    private static boolean isUniform(Vector3f scale) {
+        return scale.x() == scale.y() && scale.x() == scale.z();
     }
 }
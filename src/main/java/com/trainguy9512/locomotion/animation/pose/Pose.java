@@ -1,36 +1,61 @@
 package com.trainguy9512.locomotion.animation.pose;
 
-import com.google.common.collect.Maps;
-import com.mojang.blaze3d.vertex.PoseStack;
 import com.trainguy9512.locomotion.animation.joint.skeleton.JointSkeleton;
 import com.trainguy9512.locomotion.animation.joint.JointChannel;
-import org.joml.*;
+import org.joml.Matrix4f;
+import org.joml.Matrix4fc;
+import org.joml.Quaternionf;
+import org.joml.Quaternionfc;
+import org.joml.Vector3f;
+import org.joml.Vector3fc;
 
 import java.util.*;
 
+/**
+ * Animation pose that stores the transform of every joint in a skeleton.
+ * <p>
+ * Joint data is kept in flat primitive arrays indexed by the joint ordinals of the pose's {@link JointSkeleton},
+ * with translation, rotation (as an x, y, z, w quaternion) and scale stored per joint. The string-keyed
+ * {@link Pose#getJointChannel(String)} and {@link Pose#setJointChannel(String, JointChannel)} methods remain available,
+ * but performance-sensitive code should use the joint ordinal accessors.
+ */
 public abstract class Pose {
 
+    protected static final int TRANSLATION_STRIDE = 3;
+    protected static final int ROTATION_STRIDE = 4;
+    protected static final int SCALE_STRIDE = 3;
+
     protected final JointSkeleton jointSkeleton;
-    protected final Map<String, JointChannel> jointChannels;
-    protected final Map<String, Float> customAttributes;
-    private final Map<String, Matrix4f> jointParentMatrices;
+    protected final float[] translations;
+    protected final float[] rotations;
+    protected final float[] scales;
+    protected final boolean[] visibilities;
+    protected final float[] customAttributeValues;
+
+    private final Quaternionf decompositionRotation = new Quaternionf();
 
     protected Pose (JointSkeleton jointSkeleton) {
         this.jointSkeleton = jointSkeleton;
-        this.jointChannels = Maps.newHashMap();
-        this.customAttributes = jointSkeleton.getCustomAttributeDefaults();
-        this.jointParentMatrices = Maps.newHashMap();
+        int jointCount = jointSkeleton.getJointCount();
+        this.translations = new float[jointCount * TRANSLATION_STRIDE];
+        this.rotations = new float[jointCount * ROTATION_STRIDE];
+        this.scales = new float[jointCount * SCALE_STRIDE];
+        this.visibilities = new boolean[jointCount];
+        this.customAttributeValues = new float[jointSkeleton.getCustomAttributeCount()];
 
-        for(String joint : jointSkeleton.getJoints()){
-            this.setJointChannel(joint, JointChannel.ZERO);
+        for (int joint = 0; joint < jointCount; joint++) {
+            this.setJointToIdentity(joint);
         }
+        this.resetCustomAttributesToDefault();
     }
 
     protected Pose (Pose pose) {
         this.jointSkeleton = pose.jointSkeleton;
-        this.jointChannels = new HashMap<>(pose.jointChannels);
-        this.customAttributes = Maps.newHashMap(pose.customAttributes);
-        this.jointParentMatrices = new HashMap<>(pose.jointParentMatrices);
+        this.translations = pose.translations.clone();
+        this.rotations = pose.rotations.clone();
+        this.scales = pose.scales.clone();
+        this.visibilities = pose.visibilities.clone();
+        this.customAttributeValues = pose.customAttributeValues.clone();
     }
 
     /**
@@ -41,66 +66,231 @@ public abstract class Pose {
         return this.jointSkeleton;
     }
 
+    /**
+     * Copies every joint transform and custom attribute value of the provided pose onto this pose.
+     * @param other                 Pose to copy from, using the same joint skeleton as this pose.
+     * @return                      This pose
+     */
+    public <P extends Pose> P copyFrom(Pose other) {
+        System.arraycopy(other.translations, 0, this.translations, 0, this.translations.length);
+        System.arraycopy(other.rotations, 0, this.rotations, 0, this.rotations.length);
+        System.arraycopy(other.scales, 0, this.scales, 0, this.scales.length);
+        System.arraycopy(other.visibilities, 0, this.visibilities, 0, this.visibilities.length);
+        System.arraycopy(other.customAttributeValues, 0, this.customAttributeValues, 0, this.customAttributeValues.length);
+        return (P) this;
+    }
+
     /**
      * Sets the transform for the supplied joint by its string identifier.
      * @param joint                 Joint string identifier
      * @param jointChannel        Joint transform
      */
     public void setJointChannel(String joint, JointChannel jointChannel){
-        if(this.jointSkeleton.containsJoint(joint)){
-            this.jointChannels.put(joint, jointChannel);
+        int jointIndex = this.jointSkeleton.getJointIndex(joint);
+        if (jointIndex != -1) {
+            this.setJointChannel(jointIndex, jointChannel);
         }
     }
 
+    /**
+     * Sets the transform for the supplied joint by its ordinal.
+     * @param jointIndex            Joint ordinal
+     * @param jointChannel          Joint transform
+     */
+    public void setJointChannel(int jointIndex, JointChannel jointChannel){
+        this.setJointTranslation(jointIndex, jointChannel.getTranslation());
+        this.setJointRotation(jointIndex, jointChannel.getRotation());
+        this.setJointScale(jointIndex, jointChannel.getScale());
+        this.visibilities[jointIndex] = jointChannel.getVisibility();
+    }
+
     /**
      * Retrieves a copy of the transform for the supplied joint.
      * @param joint                 Joint string identifier
      * @return                      Joint transform
      */
     public JointChannel getJointChannel(String joint){
-        return JointChannel.of(this.jointChannels.getOrDefault(joint, JointChannel.ZERO));
+        int jointIndex = this.jointSkeleton.getJointIndex(joint);
+        if (jointIndex == -1) {
+            return JointChannel.of(JointChannel.ZERO);
+        }
+        return this.getJointChannel(jointIndex);
     }
 
-    public void loadCustomAttributeValue(String customAttributeName, float value) {
-        this.customAttributes.put(customAttributeName, value);
+    /**
+     * Retrieves a copy of the transform for the supplied joint ordinal.
+     * @param jointIndex            Joint ordinal
+     * @return                      Joint transform
+     */
+    public JointChannel getJointChannel(int jointIndex){
+        return JointChannel.ofTranslationRotationScaleQuaternion(
+                this.getJointTranslation(jointIndex, new Vector3f()),
+                this.getJointRotation(jointIndex, new Quaternionf()),
+                this.getJointScale(jointIndex, new Vector3f()),
+                this.visibilities[jointIndex]
+        );
     }
 
-    public float getCustomAttributeValue(String customAttributeName) {
-        if (!this.customAttributes.containsKey(customAttributeName)) {
-            throw new IllegalArgumentException("Custom attribute \"" + customAttributeName + "\" cannot be accessed from pose, not included in the following curves: " + this.customAttributes.keySet());
-        }
-        return this.customAttributes.get(customAttributeName);
+    public Vector3f getJointTranslation(int jointIndex, Vector3f destination) {
+        int offset = jointIndex * TRANSLATION_STRIDE;
+        return destination.set(this.translations[offset], this.translations[offset + 1], this.translations[offset + 2]);
     }
 
-    public boolean getCustomAttributeValueAsBoolean(String customAttributeName) {
-        return this.getCustomAttributeValue(customAttributeName) > 0.5;
+    public Quaternionf getJointRotation(int jointIndex, Quaternionf destination) {
+        int offset = jointIndex * ROTATION_STRIDE;
+        return destination.set(this.rotations[offset], this.rotations[offset + 1], this.rotations[offset + 2], this.rotations[offset + 3]);
     }
 
-    public <P extends Pose> P copyCustomAttributesFrom(P other) {
-        this.customAttributes.putAll(other.customAttributes);
-        return (P) this;
+    public Vector3f getJointScale(int jointIndex, Vector3f destination) {
+        int offset = jointIndex * SCALE_STRIDE;
+        return destination.set(this.scales[offset], this.scales[offset + 1], this.scales[offset + 2]);
+    }
+
+    public boolean getJointVisibility(int jointIndex) {
+        return this.visibilities[jointIndex];
+    }
+
+    public void setJointTranslation(int jointIndex, Vector3fc translation) {
+        int offset = jointIndex * TRANSLATION_STRIDE;
+        this.translations[offset] = translation.x();
+        this.translations[offset + 1] = translation.y();
+        this.translations[offset + 2] = translation.z();
+    }
+
+    public void setJointRotation(int jointIndex, Quaternionfc rotation) {
+        int offset = jointIndex * ROTATION_STRIDE;
+        this.rotations[offset] = rotation.x();
+        this.rotations[offset + 1] = rotation.y();
+        this.rotations[offset + 2] = rotation.z();
+        this.rotations[offset + 3] = rotation.w();
+    }
+
+    public void setJointScale(int jointIndex, Vector3fc scale) {
+        int offset = jointIndex * SCALE_STRIDE;
+        this.scales[offset] = scale.x();
+        this.scales[offset + 1] = scale.y();
+        this.scales[offset + 2] = scale.z();
+    }
+
+    public void setJointTranslation(int jointIndex, float x, float y, float z) {
+        int offset = jointIndex * TRANSLATION_STRIDE;
+        this.translations[offset] = x;
+        this.translations[offset + 1] = y;
+        this.translations[offset + 2] = z;
+    }
+
+    public void setJointRotation(int jointIndex, float x, float y, float z, float w) {
+        int offset = jointIndex * ROTATION_STRIDE;
+        this.rotations[offset] = x;
+        this.rotations[offset + 1] = y;
+        this.rotations[offset + 2] = z;
+        this.rotations[offset + 3] = w;
     }
 
-    protected void convertChildrenJointsToComponentSpace(String parent, PoseStack poseStack){
-        JointChannel localParentJointChannel = this.getJointChannel(parent);
+    public void setJointScale(int jointIndex, float x, float y, float z) {
+        int offset = jointIndex * SCALE_STRIDE;
+        this.scales[offset] = x;
+        this.scales[offset + 1] = y;
+        this.scales[offset + 2] = z;
+    }
 
-        poseStack.pushPose();
-        poseStack.mulPose(localParentJointChannel.getTransform());
+    public void setJointVisibility(int jointIndex, boolean visibility) {
+        this.visibilities[jointIndex] = visibility;
+    }
 
-        this.getJointSkeleton().getDirectChildrenOfJoint(parent).forEach(child -> this.convertChildrenJointsToComponentSpace(child, poseStack));
+    /**
+     * Resets the supplied joint to have no translation, no rotation, a scale of one, and to be visible.
+     * @param jointIndex            Joint ordinal
+     */
+    public void setJointToIdentity(int jointIndex) {
+        int translationOffset = jointIndex * TRANSLATION_STRIDE;
+        int rotationOffset = jointIndex * ROTATION_STRIDE;
+        int scaleOffset = jointIndex * SCALE_STRIDE;
+        this.translations[translationOffset] = 0;
+        this.translations[translationOffset + 1] = 0;
+        this.translations[translationOffset + 2] = 0;
+        this.rotations[rotationOffset] = 0;
+        this.rotations[rotationOffset + 1] = 0;
+        this.rotations[rotationOffset + 2] = 0;
+        this.rotations[rotationOffset + 3] = 1;
+        this.scales[scaleOffset] = 1;
+        this.scales[scaleOffset + 1] = 1;
+        this.scales[scaleOffset + 2] = 1;
+        this.visibilities[jointIndex] = true;
+    }
 
-        Matrix4f componentSpaceMatrix = new Matrix4f(poseStack.last().pose());
-        this.jointParentMatrices.put(parent, componentSpaceMatrix);
-        this.setJointChannel(parent, JointChannel.of(componentSpaceMatrix, localParentJointChannel.getVisibility()));
-        poseStack.popPose();
+    /**
+     * Writes the transform of the supplied joint onto the provided matrix.
+     * @param jointIndex            Joint ordinal
+     * @param destination           Matrix to write the transform onto
+     * @return                      Destination matrix
+     */
+    public Matrix4f getJointTransform(int jointIndex, Matrix4f destination) {
+        int translationOffset = jointIndex * TRANSLATION_STRIDE;
+        int rotationOffset = jointIndex * ROTATION_STRIDE;
+        int scaleOffset = jointIndex * SCALE_STRIDE;
+        return destination.translationRotateScale(
+                this.translations[translationOffset], this.translations[translationOffset + 1], this.translations[translationOffset + 2],
+                this.rotations[rotationOffset], this.rotations[rotationOffset + 1], this.rotations[rotationOffset + 2], this.rotations[rotationOffset + 3],
+                this.scales[scaleOffset], this.scales[scaleOffset + 1], this.scales[scaleOffset + 2]
+        );
     }
 
-    protected void convertChildrenJointsToLocalSpace(String parent, Matrix4f parentMatrix){
+    /**
+     * Decomposes the provided matrix into translation, rotation, and scale and writes it onto the supplied joint.
+     * @param jointIndex            Joint ordinal
+     * @param transform             Transform matrix
+     */
+    protected void setJointTransform(int jointIndex, Matrix4fc transform) {
+        int translationOffset = jointIndex * TRANSLATION_STRIDE;
+        this.translations[translationOffset] = transform.m30();
+        this.translations[translationOffset + 1] = transform.m31();
+        this.translations[translationOffset + 2] = transform.m32();
+        this.setJointRotation(jointIndex, transform.getNormalizedRotation(this.decompositionRotation));
+        int scaleOffset = jointIndex * SCALE_STRIDE;
+        this.scales[scaleOffset] = (float) Math.sqrt(transform.m00() * transform.m00() + transform.m01() * transform.m01() + transform.m02() * transform.m02());
+        this.scales[scaleOffset + 1] = (float) Math.sqrt(transform.m10() * transform.m10() + transform.m11() * transform.m11() + transform.m12() * transform.m12());
+        this.scales[scaleOffset + 2] = (float) Math.sqrt(transform.m20() * transform.m20() + transform.m21() * transform.m21() + transform.m22() * transform.m22());
+    }
 
-        this.getJointSkeleton().getDirectChildrenOfJoint(parent).forEach(child -> this.convertChildrenJointsToLocalSpace(child, this.jointParentMatrices.get(parent)));
+    public void loadCustomAttributeValue(String customAttributeName, float value) {
+        int customAttributeIndex = this.jointSkeleton.getCustomAttributeIndex(customAttributeName);
+        if (customAttributeIndex != -1) {
+            this.customAttributeValues[customAttributeIndex] = value;
+        }
+    }
 
-        JointChannel parentJointChannel = this.getJointChannel(parent);
-        parentJointChannel.multiply(parentMatrix.invert(new Matrix4f()), JointChannel.TransformSpace.LOCAL);
-        this.setJointChannel(parent, parentJointChannel);
+    public float getCustomAttributeValue(String customAttributeName) {
+        int customAttributeIndex = this.jointSkeleton.getCustomAttributeIndex(customAttributeName);
+        if (customAttributeIndex == -1) {
+            throw new IllegalArgumentException("Custom attribute \"" + customAttributeName + "\" cannot be accessed from pose, not included in the following curves: " + this.jointSkeleton.getCustomAttributes());
+        }
+        return this.customAttributeValues[customAttributeIndex];
+    }
+
+    public float getCustomAttributeValue(int customAttributeIndex) {
+        return this.customAttributeValues[customAttributeIndex];
+    }
+
+    public void setCustomAttributeValue(int customAttributeIndex, float value) {
+        this.customAttributeValues[customAttributeIndex] = value;
+    }
+
+    /**
+     * Sets every custom attribute back to the default value defined by the joint skeleton.
+     */
+    public void resetCustomAttributesToDefault() {
+        for (int customAttribute = 0; customAttribute < this.customAttributeValues.length; customAttribute++) {
+            this.customAttributeValues[customAttribute] = this.jointSkeleton.getCustomAttributeDefaultValue(customAttribute);
+        }
+    }
+
+    public boolean getCustomAttributeValueAsBoolean(String customAttributeName) {
+        return this.getCustomAttributeValue(customAttributeName) > 0.5;
+    }
+
+    public <P extends Pose> P copyCustomAttributesFrom(P other) {
+        System.arraycopy(other.customAttributeValues, 0, this.customAttributeValues, 0, this.customAttributeValues.length);
+        return (P) this;
     }
 }
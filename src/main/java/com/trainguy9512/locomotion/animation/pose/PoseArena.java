@@ -0,0 +1,66 @@
+package com.trainguy9512.locomotion.animation.pose;
+
+import com.trainguy9512.locomotion.animation.joint.skeleton.JointSkeleton;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pool of scratch poses that pose functions borrow from while a pose is being computed.
+ * <p>
+ * Borrowed poses are never returned individually. Instead, the whole arena is reset at the start of every pose
+ * calculation, and every pose borrowed during the previous calculation is handed out again. Once the graph has been
+ * computed a few times the arena holds enough poses for the largest frame, and computing a pose no longer allocates.
+ * <p>
+ * Because of this, a borrowed pose is only valid until the next reset. Poses that need to outlive the current pose
+ * calculation, such as values stored in drivers or poses cached across frames, need to be copied with
+ * {@link LocalSpacePose#of(Pose)} rather than borrowed.
+ */
+public class PoseArena {
+
+    private final JointSkeleton jointSkeleton;
+    private final List<LocalSpacePose> localSpacePoses;
+    private int borrowedLocalSpacePoses;
+
+    private PoseArena(JointSkeleton jointSkeleton) {
+        this.jointSkeleton = jointSkeleton;
+        this.localSpacePoses = new ArrayList<>();
+        this.borrowedLocalSpacePoses = 0;
+    }
+
+    public static PoseArena of(JointSkeleton jointSkeleton) {
+        return new PoseArena(jointSkeleton);
+    }
+
+    public JointSkeleton getJointSkeleton() {
+        return this.jointSkeleton;
+    }
+
+    /**
+     * Borrows a local space pose from the arena. The contents of the pose are left over from its previous use, so
+     * callers are expected to overwrite every joint and custom attribute.
+     * @return                      Scratch local space pose, valid until the arena is reset.
+     */
+    public LocalSpacePose borrowLocalSpacePose() {
+        if (this.borrowedLocalSpacePoses == this.localSpacePoses.size()) {
+            this.localSpacePoses.add(LocalSpacePose.of(this.jointSkeleton));
+        }
+        return this.localSpacePoses.get(this.borrowedLocalSpacePoses++);
+    }
+
+    /**
+     * Borrows a local space pose from the arena and overwrites it with the contents of the provided pose.
+     * @param pose                  Pose to copy
+     * @return                      Scratch local space pose, valid until the arena is reset.
+     */
+    public LocalSpacePose borrowCopyOf(Pose pose) {
+        return this.borrowLocalSpacePose().copyFrom(pose);
+    }
+
+    /**
+     * Makes every pose borrowed from the arena available again.
+     */
+    public void reset() {
+        this.borrowedLocalSpacePoses = 0;
+    }
+}
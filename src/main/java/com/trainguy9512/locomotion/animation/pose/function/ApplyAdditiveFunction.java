@@ -34,16 +34,36 @@ public class ApplyAdditiveFunction implements PoseFunction<LocalSpacePose> {
     @Override
     public @NotNull LocalSpacePose compute(FunctionInterpolationContext context) {
         LocalSpacePose basePose = this.basePoseInput.compute(context);
+        float weight = this.alphaFunction.apply(context);
+        if (weight == 0f) {
+            return basePose;
+        }
+        return this.applyAdditive(basePose, this.additivePoseInput.compute(context), weight);
+    }
 
-        LocalSpacePose additivePose = this.additivePoseInput.compute(context);
+    /**
+     * The additive input is compiled into a program of its own, so that it is not computed while the alpha is zero.
+     */
+    @Override
+    public int compile(PoseProgram.Builder program) {
+        int basePoseRegister = this.basePoseInput.compile(program);
+        PoseProgram<LocalSpacePose> additivePoseProgram = program.compileSubprogram(this.additivePoseInput);
+        return program.addInstruction((context, registers) -> {
+            LocalSpacePose basePose = registers.get(basePoseRegister);
+            float weight = this.alphaFunction.apply(context);
+            if (weight == 0f) {
+                return basePose;
+            }
+            return this.applyAdditive(basePose, additivePoseProgram.execute(context), weight);
+        });
+    }
+
+    private LocalSpacePose applyAdditive(LocalSpacePose basePose, LocalSpacePose additivePose, float weight) {
         additivePose.multiply(basePose, JointChannel.TransformSpace.COMPONENT);
         additivePose.copyCustomAttributesFrom(basePose);
 
-        float weight = this.alphaFunction.apply(context);
         if (weight == 1f) {
             return additivePose;
-        } else if (weight == 0f) {
-            return basePose;
         } else {
             return basePose.interpolated(additivePose, weight);
         }
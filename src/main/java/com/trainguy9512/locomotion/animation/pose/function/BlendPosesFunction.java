@@ -1,13 +1,16 @@
 package com.trainguy9512.locomotion.animation.pose.function;
 
 import com.google.common.collect.Maps;
+import com.trainguy9512.locomotion.LocomotionMain;
 import com.trainguy9512.locomotion.animation.driver.VariableDriver;
 import com.trainguy9512.locomotion.animation.joint.skeleton.BlendMask;
 import com.trainguy9512.locomotion.animation.pose.LocalSpacePose;
+import com.trainguy9512.locomotion.config.LocomotionConfig;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinTask;
 import java.util.function.Function;
 
 public class BlendPosesFunction implements PoseFunction<LocalSpacePose> {
@@ -32,6 +35,79 @@ public class BlendPosesFunction implements PoseFunction<LocalSpacePose> {
         return pose;
     }
 
+    /**
+     * Blend inputs are compiled into programs of their own, so that inputs with a weight of zero are still skipped.
+     * <p>
+     * With parallel evaluation enabled, inputs that cost at least the configured threshold are forked onto the pose
+     * evaluation pool, and computed alongside the base pose, which is then compiled into a program of its own as well.
+     */
+    @Override
+    public int compile(PoseProgram.Builder program) {
+        BlendInput[] blendInputs = this.inputs.keySet().toArray(BlendInput[]::new);
+        List<VariableDriver<Float>> weightDrivers = new ArrayList<>();
+        List<PoseProgram<LocalSpacePose>> inputPrograms = new ArrayList<>();
+        for (BlendInput blendInput : blendInputs) {
+            weightDrivers.add(this.inputs.get(blendInput));
+            inputPrograms.add(program.compileSubprogram(blendInput.inputFunction));
+        }
+
+        LocomotionConfig.Data.PoseEvaluation poseEvaluationConfig = LocomotionMain.CONFIG.data().poseEvaluation;
+        boolean[] forkedInputs = new boolean[blendInputs.length];
+        boolean anyInputsForked = false;
+        for (int input = 0; input < blendInputs.length; input++) {
+            forkedInputs[input] = poseEvaluationConfig.enableParallelEvaluation && inputPrograms.get(input).getCost() >= poseEvaluationConfig.parallelEvaluationCostThreshold;
+            anyInputsForked |= forkedInputs[input];
+        }
+        if (anyInputsForked) {
+            return this.compileForked(program, blendInputs, weightDrivers, inputPrograms, forkedInputs);
+        }
+
+        int basePoseRegister = this.baseFunction.compile(program);
+        return program.addInstruction((context, registers) -> {
+            LocalSpacePose pose = registers.get(basePoseRegister);
+            for (int input = 0; input < blendInputs.length; input++) {
+                float weight = weightDrivers.get(input).getValueInterpolated(context.partialTicks());
+                if (weight != 0f) {
+                    pose = pose.interpolated(inputPrograms.get(input).execute(context), weight, blendInputs[input].blendMask);
+                }
+            }
+            return pose;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compileForked(PoseProgram.Builder program, BlendInput[] blendInputs, List<VariableDriver<Float>> weightDrivers, List<PoseProgram<LocalSpacePose>> inputPrograms, boolean[] forkedInputs) {
+        PoseProgram<LocalSpacePose> baseProgram = program.compileSubprogram(this.baseFunction);
+        float[] weights = new float[blendInputs.length];
+        ForkJoinTask<LocalSpacePose>[] inputTasks = new ForkJoinTask[blendInputs.length];
+        return program.addInstruction((context, registers) -> {
+            try {
+                for (int input = 0; input < blendInputs.length; input++) {
+                    weights[input] = weightDrivers.get(input).getValueInterpolated(context.partialTicks());
+                    inputTasks[input] = weights[input] != 0f && forkedInputs[input] ? inputPrograms.get(input).fork(context) : null;
+                }
+                LocalSpacePose pose = baseProgram.execute(context);
+                for (int input = 0; input < blendInputs.length; input++) {
+                    if (weights[input] != 0f) {
+                        LocalSpacePose inputPose = inputTasks[input] != null ? inputTasks[input].join() : inputPrograms.get(input).execute(context);
+                        inputTasks[input] = null;
+                        pose = pose.interpolated(inputPose, weights[input], blendInputs[input].blendMask);
+                    }
+                }
+                return pose;
+            } finally {
+                // If anything above threw, forked inputs may still be writing to the registers and pose arena that the
+                // next execution reuses, so every outstanding task is waited for before the exception propagates.
+                for (int input = 0; input < blendInputs.length; input++) {
+                    if (inputTasks[input] != null) {
+                        inputTasks[input].quietlyJoin();
+                        inputTasks[input] = null;
+                    }
+                }
+            }
+        });
+    }
+
     @Override
     public void tick(FunctionEvaluationState evaluationState) {
         this.baseFunction.tick(evaluationState);
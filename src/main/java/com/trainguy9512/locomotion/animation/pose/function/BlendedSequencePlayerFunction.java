@@ -72,17 +72,17 @@ public class BlendedSequencePlayerFunction extends TimeBasedPoseFunction<LocalSp
         var ceilingEntry = this.blendSpaceEntries.ceilingEntry(interpolatedPosition);
 
         if (floorEntry == null)
-            return AnimationSequence.samplePose(context.driverContainer().getJointSkeleton(), ceilingEntry.getValue().animationSequence(), time, true);
+            return AnimationSequence.samplePose(context.driverContainer().getJointSkeleton(), ceilingEntry.getValue().animationSequence(), time, true, context.poseArena().borrowLocalSpacePose());
         if (ceilingEntry == null)
-            return AnimationSequence.samplePose(context.driverContainer().getJointSkeleton(), floorEntry.getValue().animationSequence(), time, true);
+            return AnimationSequence.samplePose(context.driverContainer().getJointSkeleton(), floorEntry.getValue().animationSequence(), time, true, context.poseArena().borrowLocalSpacePose());
 
         // If they're both the same frame
         if (floorEntry.getKey().equals(ceilingEntry.getKey()))
-            return AnimationSequence.samplePose(context.driverContainer().getJointSkeleton(), floorEntry.getValue().animationSequence(), time, true);
+            return AnimationSequence.samplePose(context.driverContainer().getJointSkeleton(), floorEntry.getValue().animationSequence(), time, true, context.poseArena().borrowLocalSpacePose());
 
         float relativeTime = (interpolatedPosition - floorEntry.getKey()) / (ceilingEntry.getKey() - floorEntry.getKey());
-        LocalSpacePose floorPose = AnimationSequence.samplePose(context.driverContainer().getJointSkeleton(), floorEntry.getValue().animationSequence(), time, true);
-        LocalSpacePose ceilingPose = AnimationSequence.samplePose(context.driverContainer().getJointSkeleton(), ceilingEntry.getValue().animationSequence(), time, true);
+        LocalSpacePose floorPose = AnimationSequence.samplePose(context.driverContainer().getJointSkeleton(), floorEntry.getValue().animationSequence(), time, true, context.poseArena().borrowLocalSpacePose());
+        LocalSpacePose ceilingPose = AnimationSequence.samplePose(context.driverContainer().getJointSkeleton(), ceilingEntry.getValue().animationSequence(), time, true, context.poseArena().borrowLocalSpacePose());
 
         return floorPose.interpolated(ceilingPose, relativeTime);
     }
@@ -36,24 +36,35 @@ public class JointTransformerFunction<P extends Pose> implements PoseFunction<P>
 
     @Override
     public @NotNull P compute(FunctionInterpolationContext context) {
+        return this.transformPose(this.input.compute(context), context);
+    }
+
+    @Override
+    public int compile(PoseProgram.Builder program) {
+        int inputRegister = this.input.compile(program);
+        return program.addInstruction((context, registers) -> this.transformPose(registers.get(inputRegister), context));
+    }
+
+    private P transformPose(P pose, FunctionInterpolationContext context) {
         if (!context.driverContainer().getJointSkeleton().containsJoint(this.joint)) {
             throw new IllegalArgumentException("Cannot run joint transformer function on joint " + this.joint + ", for it is not present within the skeleton. Valid joints: " + context.driverContainer().getJointSkeleton().getJoints());
         }
 
-        P pose = this.input.compute(context);
+        // Transform functions are only evaluated when the transform contributes to the pose.
         float weight = this.weightFunction.apply(context);
+        if(weight == 0){
+            return pose;
+        }
 
         JointChannel jointChannel = pose.getJointChannel(this.joint);
         this.transformJoint(jointChannel, context, this.translationConfiguration, JointChannel::translate);
         this.transformJoint(jointChannel, context, this.rotationConfiguration, JointChannel::rotate);
         this.transformJoint(jointChannel, context, this.scaleConfiguration, JointChannel::scale);
 
-        if(weight != 0){
-            if(weight == 1){
-                pose.setJointChannel(this.joint, jointChannel);
-            } else {
-                pose.setJointChannel(this.joint, pose.getJointChannel(this.joint).interpolate(jointChannel, weight));
-            }
+        if(weight == 1){
+            pose.setJointChannel(this.joint, jointChannel);
+        } else {
+            pose.setJointChannel(this.joint, pose.getJointChannel(this.joint).interpolate(jointChannel, weight));
         }
         return pose;
     }
@@ -26,8 +26,17 @@ public class MakeDynamicAdditiveFunction implements PoseFunction<LocalSpacePose>
     @Override
     public @NotNull LocalSpacePose compute(FunctionInterpolationContext context) {
         LocalSpacePose additivePose = this.additivePoseInput.compute(context);
-        LocalSpacePose additivePoseReference = this.basePoseInput.compute(context);
+        return this.makeAdditive(additivePose, this.basePoseInput.compute(context));
+    }
+
+    @Override
+    public int compile(PoseProgram.Builder program) {
+        int additivePoseRegister = this.additivePoseInput.compile(program);
+        int basePoseRegister = this.basePoseInput.compile(program);
+        return program.addInstruction((context, registers) -> this.makeAdditive(registers.get(additivePoseRegister), registers.get(basePoseRegister)));
+    }
 
+    private LocalSpacePose makeAdditive(LocalSpacePose additivePose, LocalSpacePose additivePoseReference) {
         additivePoseReference.invert();
         additivePose.multiply(additivePoseReference, JointChannel.TransformSpace.COMPONENT);
 
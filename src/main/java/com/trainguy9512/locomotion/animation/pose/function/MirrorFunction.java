@@ -29,10 +29,20 @@ public class MirrorFunction implements PoseFunction<LocalSpacePose> {
 
     @Override
     public @NotNull LocalSpacePose compute(FunctionInterpolationContext context) {
+        return this.mirror(this.input.compute(context), context);
+    }
+
+    @Override
+    public int compile(PoseProgram.Builder program) {
+        int inputRegister = this.input.compile(program);
+        return program.addInstruction((context, registers) -> this.mirror(registers.get(inputRegister), context));
+    }
+
+    private LocalSpacePose mirror(LocalSpacePose pose, FunctionInterpolationContext context) {
         if (this.enabledFunction.apply(context)) {
-            return input.compute(context).mirrored();
+            return pose.mirrored(context.poseArena().borrowLocalSpacePose());
         } else {
-            return input.compute(context);
+            return pose;
         }
     }
 
@@ -0,0 +1,90 @@
+package com.trainguy9512.locomotion.animation.pose.function;
+
+import com.trainguy9512.locomotion.animation.animator.JointAnimator;
+import com.trainguy9512.locomotion.animation.driver.VariableDriver;
+import com.trainguy9512.locomotion.animation.joint.skeleton.JointSkeleton;
+import com.trainguy9512.locomotion.animation.pose.LocalSpacePose;
+import com.trainguy9512.locomotion.util.Interpolator;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Optional;
+
+/**
+ * Pose function that computes its input once per tick, and interpolates between the poses of the last two ticks every
+ * frame in between.
+ * <p>
+ * This is the same as {@link JointAnimator.PoseCalculationFrequency#CALCULATE_ONCE_PER_TICK}, but for a single part of
+ * the graph, so that layers which change slowly can be computed at the tick rate while the rest of the joint animator
+ * is computed every frame.
+ * <p>
+ * The input is computed the first time this function is computed after a tick, as it would be at the end of the tick,
+ * and stored in a pose driver. If the input was not computed on the previous tick, such as when this function was
+ * irrelevant, the pose is not interpolated from the stale pose of an earlier tick.
+ */
+public class PerTickPoseFunction implements PoseFunction<LocalSpacePose> {
+
+    private final PoseFunction<LocalSpacePose> input;
+
+    private VariableDriver<LocalSpacePose> poseDriver;
+    private long lastTickedTick;
+    private long lastComputedTick;
+    private boolean resetting;
+
+    public PerTickPoseFunction(PoseFunction<LocalSpacePose> input) {
+        this.input = input;
+        this.poseDriver = null;
+        this.lastTickedTick = 0;
+        this.lastComputedTick = -1;
+        this.resetting = true;
+    }
+
+    public static PerTickPoseFunction of(PoseFunction<LocalSpacePose> input) {
+        return new PerTickPoseFunction(input);
+    }
+
+    @Override
+    public @NotNull LocalSpacePose compute(FunctionInterpolationContext context) {
+        JointSkeleton jointSkeleton = context.driverContainer().getJointSkeleton();
+        if (this.poseDriver == null || this.poseDriver.getCurrentValue().getJointSkeleton() != jointSkeleton) {
+            this.poseDriver = VariableDriver.ofInterpolatable(() -> LocalSpacePose.of(jointSkeleton), Interpolator.LOCAL_SPACE_POSE);
+            this.resetting = true;
+        }
+        if (this.lastComputedTick != this.lastTickedTick) {
+            boolean computedLastTick = this.lastComputedTick == this.lastTickedTick - 1;
+            LocalSpacePose tickPose = this.input.compute(context.atEndOfTick());
+
+            // The pose driver's previous pose is reused for the new pose, rather than copying the pose into a new one.
+            LocalSpacePose recycledPose = this.poseDriver.getPreviousValue();
+            this.poseDriver.pushCurrentToPrevious();
+            this.poseDriver.setValue(recycledPose.copyFrom(tickPose));
+            if (this.resetting || !computedLastTick) {
+                this.poseDriver.getPreviousValue().copyFrom(tickPose);
+                this.resetting = false;
+            }
+            this.lastComputedTick = this.lastTickedTick;
+        }
+        // Interpolated onto a borrowed pose, rather than through the driver's interpolator, which creates a new pose.
+        return this.poseDriver.getPreviousValue().interpolated(
+                this.poseDriver.getCurrentValue(),
+                context.partialTicks(),
+                context.poseArena().borrowLocalSpacePose()
+        );
+    }
+
+    @Override
+    public void tick(FunctionEvaluationState evaluationState) {
+        this.input.tick(evaluationState);
+        this.lastTickedTick = evaluationState.currentTick();
+        this.resetting |= evaluationState.resetting();
+    }
+
+    @Override
+    public PoseFunction<LocalSpacePose> wrapUnique() {
+        return PerTickPoseFunction.of(this.input.wrapUnique());
+    }
+
+    @Override
+    public Optional<AnimationPlayer> testForMostRelevantAnimationPlayer() {
+        return this.input.testForMostRelevantAnimationPlayer();
+    }
+}
@@ -21,6 +21,12 @@ public record PoseConversionFunction<I extends Pose, O extends Pose>(PoseFunctio
         return this.converter.apply(this.input.compute(context));
     }
 
+    @Override
+    public int compile(PoseProgram.Builder program) {
+        int inputRegister = this.input.compile(program);
+        return program.addInstruction((context, registers) -> this.converter.apply(registers.get(inputRegister)));
+    }
+
     @Override
     public void tick(FunctionEvaluationState evaluationState) {
         this.input.tick(evaluationState);
@@ -3,6 +3,7 @@ package com.trainguy9512.locomotion.animation.pose.function;
 import com.trainguy9512.locomotion.animation.data.OnTickDriverContainer;
 import com.trainguy9512.locomotion.animation.data.PoseCalculationDataContainer;
 import com.trainguy9512.locomotion.animation.pose.Pose;
+import com.trainguy9512.locomotion.animation.pose.PoseArena;
 import com.trainguy9512.locomotion.animation.pose.function.montage.MontageManager;
 import com.trainguy9512.locomotion.util.TimeSpan;
 import org.jetbrains.annotations.NotNull;
@@ -15,6 +16,8 @@ public interface PoseFunction<P extends Pose> {
      * Computes and returns an animation pose using its inputs.
      * @param context           Interpolation context, containing the driver container, partial ticks float, and elapsed game time for calculating values every frame.
      * @implNote                Called every frame for joint animators that compute a new pose every frame, or once per tick.
+     * @implNote                Weights that decide how much an input contributes should be evaluated before the input is computed,
+     *                          so that inputs with no contribution to the pose, such as blend inputs with a weight of zero, are not computed.
      */
     @NotNull P compute(PoseFunction.FunctionInterpolationContext context);
 
@@ -45,6 +48,20 @@ public interface PoseFunction<P extends Pose> {
      */
     Optional<AnimationPlayer> testForMostRelevantAnimationPlayer();
 
+    /**
+     * Recursive method that adds the instructions for computing this function's pose to a {@link PoseProgram}.
+     * <p>
+     * By default, the function is added as one instruction that calls {@link PoseFunction#compute}, which computes its
+     * inputs recursively. Functions that always compute all of their inputs can instead compile their inputs first,
+     * and add an instruction that reads the input poses from their registers.
+     * @param program           Program being compiled
+     * @return                  Register that the pose of this function is written to
+     * @implNote                Called on the unique copy of the joint animator's pose function.
+     */
+    default int compile(PoseProgram.Builder program) {
+        return program.addInstruction((context, registers) -> this.compute(context));
+    }
+
     record FunctionEvaluationState(OnTickDriverContainer driverContainer, MontageManager montageManager, boolean resetting, long currentTick) {
 
         public static FunctionEvaluationState of(OnTickDriverContainer driverContainer, MontageManager montageManager, boolean resetting, long currentTick) {
@@ -74,9 +91,28 @@ public interface PoseFunction<P extends Pose> {
         }
     }
 
-    record FunctionInterpolationContext(PoseCalculationDataContainer driverContainer, MontageManager montageManager, float partialTicks, TimeSpan gameTime) {
-        public static FunctionInterpolationContext of(PoseCalculationDataContainer dataContainer, MontageManager montageManager, float partialTicks, TimeSpan gameTime){
-            return new FunctionInterpolationContext(dataContainer, montageManager, partialTicks, gameTime);
+    /**
+     * @param poseArena         Arena to borrow scratch poses from. Borrowed poses are only valid for the current pose calculation.
+     */
+    record FunctionInterpolationContext(PoseCalculationDataContainer driverContainer, MontageManager montageManager, float partialTicks, TimeSpan gameTime, PoseArena poseArena) {
+        public static FunctionInterpolationContext of(PoseCalculationDataContainer dataContainer, MontageManager montageManager, float partialTicks, TimeSpan gameTime, PoseArena poseArena){
+            return new FunctionInterpolationContext(dataContainer, montageManager, partialTicks, gameTime, poseArena);
+        }
+
+        /**
+         * Creates a copy of the interpolation context that borrows poses from a different pose arena, for computing
+         * poses on another thread.
+         */
+        public FunctionInterpolationContext withPoseArena(PoseArena poseArena) {
+            return FunctionInterpolationContext.of(this.driverContainer, this.montageManager, this.partialTicks, this.gameTime, poseArena);
+        }
+
+        /**
+         * Creates a copy of the interpolation context at the end of the current tick, for computing poses that are
+         * interpolated between ticks.
+         */
+        public FunctionInterpolationContext atEndOfTick() {
+            return FunctionInterpolationContext.of(this.driverContainer, this.montageManager, 1f, TimeSpan.ofTicks(this.gameTime.inTicks() - this.partialTicks + 1f), this.poseArena);
         }
     }
 }
@@ -0,0 +1,182 @@
+package com.trainguy9512.locomotion.animation.pose.function;
+
+import com.trainguy9512.locomotion.animation.pose.Pose;
+import com.trainguy9512.locomotion.animation.pose.PoseArena;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pose function graph compiled into a flat list of instructions, which computes the same pose as the graph without
+ * recursing through it.
+ * <p>
+ * Instructions are ordered so that every instruction comes after the instructions of its inputs, and each one writes
+ * its pose to its own register, which later instructions read their input poses from. Executing the program is then a
+ * single loop over the instructions. Pose functions decide how they are compiled through
+ * {@link PoseFunction#compile(Builder)}. Functions that only combine the poses of their inputs compile into a single
+ * instruction after their inputs, while functions that choose which inputs to compute every frame, such as state
+ * machines, compile into one instruction that computes the function and its inputs recursively.
+ * <p>
+ * Programs hold onto the registers of their last execution, so a program is owned by a single data container, and is
+ * only executed by one thread at a time. Programs can also be {@link PoseProgram#fork forked} onto the pose evaluation
+ * pool, in which case they borrow their poses from a pose arena of their own rather than the calling thread's.
+ * @param <P> Type of the program's output pose
+ */
+public class PoseProgram<P extends Pose> {
+
+    private final Instruction[] instructions;
+    private final Registers registers;
+    private final int outputRegister;
+    private final int cost;
+
+    private PoseArena forkedPoseArena;
+
+    private PoseProgram(Instruction[] instructions, int outputRegister, int cost) {
+        this.instructions = instructions;
+        this.registers = new Registers(instructions.length);
+        this.outputRegister = outputRegister;
+        this.cost = cost;
+        this.forkedPoseArena = null;
+    }
+
+    /**
+     * Compiles a pose function graph into a program.
+     * @param poseFunction          Root pose function, after it has been made unique with {@link PoseFunction#wrapUnique()}.
+     * @return                      Compiled program
+     */
+    public static <P extends Pose> PoseProgram<P> compile(PoseFunction<P> poseFunction) {
+        Builder builder = new Builder();
+        int outputRegister = poseFunction.compile(builder);
+        return new PoseProgram<>(builder.instructions.toArray(Instruction[]::new), outputRegister, builder.cost);
+    }
+
+    /**
+     * Runs every instruction of the program in order.
+     * @param context               Interpolation context to compute poses with
+     * @return                      Pose of the program's root function
+     */
+    public P execute(PoseFunction.FunctionInterpolationContext context) {
+        for (int instruction = 0; instruction < this.instructions.length; instruction++) {
+            this.registers.poses[instruction] = this.instructions[instruction].execute(context, this.registers);
+        }
+        return this.registers.get(this.outputRegister);
+    }
+
+    /**
+     * Starts executing the program on the pose evaluation pool, to be joined by the calling instruction.
+     * <p>
+     * The forked program borrows its poses from a pose arena owned by the program, which is reset at the start of every
+     * forked execution. The returned pose is therefore valid until the program is forked again.
+     * @param context               Interpolation context of the calling instruction
+     * @return                      Task computing the pose of the program's root function
+     */
+    public ForkJoinTask<P> fork(PoseFunction.FunctionInterpolationContext context) {
+        PoseArena callerPoseArena = context.poseArena();
+        if (this.forkedPoseArena == null || this.forkedPoseArena.getJointSkeleton() != callerPoseArena.getJointSkeleton()) {
+            this.forkedPoseArena = PoseArena.of(callerPoseArena.getJointSkeleton());
+        }
+        PoseArena poseArena = this.forkedPoseArena;
+        PoseFunction.FunctionInterpolationContext forkedContext = context.withPoseArena(poseArena);
+        return EvaluationPool.POOL.submit(() -> {
+            poseArena.reset();
+            return this.execute(forkedContext);
+        });
+    }
+
+    public int getInstructionCount() {
+        return this.instructions.length;
+    }
+
+    /**
+     * Returns the estimated cost of executing the program, as the number of instructions in it and in the programs
+     * compiled within it.
+     */
+    public int getCost() {
+        return this.cost;
+    }
+
+    /**
+     * Computes a pose from the poses in the registers of earlier instructions.
+     */
+    @FunctionalInterface
+    public interface Instruction {
+        Pose execute(PoseFunction.FunctionInterpolationContext context, Registers registers);
+    }
+
+    /**
+     * Poses written by the instructions of a program, where each instruction writes to the register of its own index.
+     */
+    public static class Registers {
+
+        private final Pose[] poses;
+
+        private Registers(int registerCount) {
+            this.poses = new Pose[registerCount];
+        }
+
+        /**
+         * Returns the pose written to a register by an earlier instruction. Since every register is read by one
+         * instruction, the pose can be modified in place.
+         * @param register              Register returned by {@link Builder#addInstruction(Instruction)}
+         */
+        @SuppressWarnings("unchecked")
+        public <P extends Pose> P get(int register) {
+            return (P) this.poses[register];
+        }
+    }
+
+    public static class Builder {
+
+        private final List<Instruction> instructions;
+        private int cost;
+
+        private Builder() {
+            this.instructions = new ArrayList<>();
+            this.cost = 0;
+        }
+
+        /**
+         * Adds an instruction to the end of the program.
+         * @return                      Register the instruction writes its pose to
+         */
+        public int addInstruction(Instruction instruction) {
+            this.instructions.add(instruction);
+            this.cost++;
+            return this.instructions.size() - 1;
+        }
+
+        /**
+         * Compiles a pose function into a program of its own, for instructions that decide whether to execute it.
+         * The cost of the subprogram is added to the cost of this program.
+         * @param poseFunction          Input pose function to compile
+         * @return                      Compiled program
+         */
+        public <P extends Pose> PoseProgram<P> compileSubprogram(PoseFunction<P> poseFunction) {
+            PoseProgram<P> subprogram = PoseProgram.compile(poseFunction);
+            this.cost += subprogram.getCost();
+            return subprogram;
+        }
+    }
+
+    /**
+     * Pool that forked programs are executed on, created the first time a program is forked.
+     */
+    private static class EvaluationPool {
+
+        private static final AtomicInteger WORKER_COUNT = new AtomicInteger();
+        private static final ForkJoinPool POOL = new ForkJoinPool(
+                Math.max(1, Runtime.getRuntime().availableProcessors() - 1),
+                pool -> {
+                    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                    thread.setName("Locomotion Pose Evaluation Worker-" + WORKER_COUNT.incrementAndGet());
+                    return thread;
+                },
+                null,
+                false
+        );
+    }
+}
@@ -34,7 +34,8 @@ public class SequenceEvaluatorFunction implements PoseFunction<LocalSpacePose> {
                 context.driverContainer().getJointSkeleton(),
                 this.animationSequenceFunction.apply(context),
                 time,
-                false
+                false,
+                context.poseArena().borrowLocalSpacePose()
         );
     }
 
@@ -1,19 +1,24 @@
 package com.trainguy9512.locomotion.animation.pose.function;
 
 import com.google.common.collect.Maps;
+import com.trainguy9512.locomotion.LocomotionMain;
 import com.trainguy9512.locomotion.animation.sequence.AnimationSequence;
+import com.trainguy9512.locomotion.animation.sequence.SampledPoseCache;
+import com.trainguy9512.locomotion.animation.sequence.SequenceCursor;
+import com.trainguy9512.locomotion.animation.sequence.SequenceHandle;
+import com.trainguy9512.locomotion.animation.sequence.TimeMarkerIndex;
 import com.trainguy9512.locomotion.animation.joint.JointChannel;
+import com.trainguy9512.locomotion.animation.joint.skeleton.JointSkeleton;
 import com.trainguy9512.locomotion.animation.pose.LocalSpacePose;
-import com.trainguy9512.locomotion.resource.LocomotionResources;
 import com.trainguy9512.locomotion.util.TimeSpan;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.util.Mth;
 import net.minecraft.util.Tuple;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.BitSet;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -25,7 +30,14 @@ public class SequencePlayerFunction extends TimeBasedPoseFunction<LocalSpacePose
     private final Map<String, Consumer<FunctionEvaluationState>> timeMarkerBindings;
     private final boolean isAdditive;
     private final SequenceReferencePoint additiveSubtractionReferencePoint;
+    private final boolean precomputeAdditiveSequence;
+    private final SequenceHandle sequenceHandle;
+    private final SequenceCursor sequenceCursor;
+    private final SampledPoseCache.Sampler sequenceCursorSampler;
+    private final BitSet timeMarkersToFire;
 
+    private AnimationSequence additiveSourceSequence;
+    private AnimationSequence additiveSequence;
     private LocalSpacePose additiveSubtractionPose;
 
     protected SequencePlayerFunction(
@@ -46,49 +58,87 @@ public class SequencePlayerFunction extends TimeBasedPoseFunction<LocalSpacePose
         this.additiveSubtractionReferencePoint = additiveSubtractionReferencePoint;
         this.ignoredByRelevancyTest = false;
         this.isAdditive = isAdditive;
+        this.precomputeAdditiveSequence = isAdditive && LocomotionMain.CONFIG.data().animationSequences.precomputeAdditiveSequences;
+        this.sequenceHandle = SequenceHandle.of(animationSequence);
+        this.sequenceCursor = SequenceCursor.of(this.sequenceHandle);
+        this.sequenceCursorSampler = this.sequenceCursor::samplePose;
+        this.timeMarkersToFire = new BitSet();
     }
 
     @Override
     public @NotNull LocalSpacePose compute(FunctionInterpolationContext context) {
-        LocalSpacePose pose = AnimationSequence.samplePose(
-                context.driverContainer().getJointSkeleton(),
-                this.animationSequence,
-                this.getInterpolatedTimeElapsed(context),
-                this.isLooping
-        );
-        AnimationSequence sequence = LocomotionResources.getOrThrowAnimationSequence(this.animationSequence);
-        if (this.isAdditive) {
-            if (this.additiveSubtractionPose == null) {
-                this.additiveSubtractionPose = AnimationSequence.samplePose(
-                        context.driverContainer().getJointSkeleton(),
-                        this.animationSequence,
-                        switch (additiveSubtractionReferencePoint) {
-                            case BEGINNING -> this.resetStartTimeOffset;
-                            case END -> sequence.length();
-                        },
-                        false
-                );
-                this.additiveSubtractionPose.invert();
+        JointSkeleton jointSkeleton = context.driverContainer().getJointSkeleton();
+        AnimationSequence sequence = this.sequenceHandle.get();
+        if (!this.isAdditive) {
+            return SampledPoseCache.samplePose(sequence, jointSkeleton, this.getInterpolatedTimeElapsed(context), this.isLooping, context.poseArena().borrowLocalSpacePose(), this.sequenceCursorSampler);
+        }
+
+        // Additive data is prepared again if the sequence was reloaded since.
+        if (sequence != this.additiveSourceSequence) {
+            this.additiveSourceSequence = sequence;
+            this.additiveSequence = null;
+            this.additiveSubtractionPose = null;
+        }
+        if (this.precomputeAdditiveSequence) {
+            // The additive variant already has the reference pose subtracted, and is shared by every player of the sequence.
+            if (this.additiveSequence == null) {
+                this.additiveSequence = sequence.getAdditive(this.getAdditiveReferenceTime(sequence));
             }
-            pose.multiply(this.additiveSubtractionPose, JointChannel.TransformSpace.COMPONENT);
+            return SampledPoseCache.samplePose(this.additiveSequence, jointSkeleton, this.getInterpolatedTimeElapsed(context), this.isLooping, context.poseArena().borrowLocalSpacePose(), this.sequenceCursorSampler);
+        }
+
+        LocalSpacePose pose = SampledPoseCache.samplePose(sequence, jointSkeleton, this.getInterpolatedTimeElapsed(context), this.isLooping, context.poseArena().borrowLocalSpacePose(), this.sequenceCursorSampler);
+        if (this.additiveSubtractionPose == null) {
+            this.additiveSubtractionPose = sequence.samplePose(jointSkeleton, this.getAdditiveReferenceTime(sequence), false, LocalSpacePose.of(jointSkeleton));
+            this.additiveSubtractionPose.invert();
         }
+        pose.multiply(this.additiveSubtractionPose, JointChannel.TransformSpace.COMPONENT);
         return pose;
     }
 
+    private TimeSpan getAdditiveReferenceTime(AnimationSequence sequence) {
+        return switch (this.additiveSubtractionReferencePoint) {
+            case BEGINNING -> this.resetStartTimeOffset;
+            case END -> sequence.length();
+        };
+    }
+
     @Override
     public void tick(FunctionEvaluationState evaluationState) {
         super.tick(evaluationState);
-        Set<String> timeMarkersToFire = LocomotionResources.getOrThrowAnimationSequence(this.animationSequence).getMarkersInRange(TimeSpan.ofTicks(this.ticksElapsed.getCurrentValue()), TimeSpan.ofTicks(this.ticksElapsed.getCurrentValue() + this.playRate), this.isLooping);
-        for (String timeMarker : timeMarkersToFire) {
-            if (this.timeMarkerBindings.containsKey(timeMarker)) {
-                this.timeMarkerBindings.get(timeMarker).accept(evaluationState);
+        if (this.timeMarkerBindings.isEmpty()) {
+            return;
+        }
+        AnimationSequence sequence = this.sequenceHandle.get();
+        TimeMarkerIndex timeMarkerIndex = sequence.timeMarkerIndex();
+        timeMarkerIndex.getMarkersInRange(
+                TimeSpan.ofTicks(this.ticksElapsed.getCurrentValue()).inSeconds(),
+                TimeSpan.ofTicks(this.ticksElapsed.getCurrentValue() + this.playRate).inSeconds(),
+                this.isLooping,
+                sequence.length().inSeconds(),
+                this.timeMarkersToFire
+        );
+        for (int markerId = this.timeMarkersToFire.nextSetBit(0); markerId >= 0; markerId = this.timeMarkersToFire.nextSetBit(markerId + 1)) {
+            Consumer<FunctionEvaluationState> binding = this.timeMarkerBindings.get(timeMarkerIndex.getIdentifier(markerId));
+            if (binding != null) {
+                binding.accept(evaluationState);
             }
         }
     }
 
+    @Override
+    protected void resetTime() {
+        super.resetTime();
+        this.sequenceCursor.reset();
+    }
+
+    /**
+     * The unique copy resolves its sequence right away, along with its additive variant if there is one, so that the
+     * first evaluation does not have to look them up or bake them.
+     */
     @Override
     public PoseFunction<LocalSpacePose> wrapUnique() {
-        return new SequencePlayerFunction(
+        SequencePlayerFunction uniqueFunction = new SequencePlayerFunction(
                 this.isPlayingFunction,
                 this.playRateFunction,
                 this.resetStartTimeOffset,
@@ -99,6 +149,12 @@ public class SequencePlayerFunction extends TimeBasedPoseFunction<LocalSpacePose
                 this.isAdditive,
                 this.additiveSubtractionReferencePoint
         );
+        AnimationSequence sequence = uniqueFunction.sequenceHandle.resolve().get();
+        if (uniqueFunction.precomputeAdditiveSequence) {
+            uniqueFunction.additiveSourceSequence = sequence;
+            uniqueFunction.additiveSequence = sequence.getAdditive(uniqueFunction.getAdditiveReferenceTime(sequence));
+        }
+        return uniqueFunction;
     }
 
     @Override
@@ -112,7 +168,7 @@ public class SequencePlayerFunction extends TimeBasedPoseFunction<LocalSpacePose
 
     @Override
     public Tuple<TimeSpan, TimeSpan> getRemainingTime() {
-        float lengthInTicks = LocomotionResources.getOrThrowAnimationSequence(animationSequence).length().inTicks();
+        float lengthInTicks = this.sequenceHandle.get().length().inTicks();
         float remainingTimePreviously;
         float remainingTimeCurrently;
         if (this.isLooping) {
@@ -127,7 +183,7 @@ public class SequencePlayerFunction extends TimeBasedPoseFunction<LocalSpacePose
 
     @Override
     public TimeSpan getAnimationLength() {
-        return LocomotionResources.getOrThrowAnimationSequence(this.animationSequence).length();
+        return this.sequenceHandle.get().length();
     }
 
     public static class Builder<B extends Builder<B>> extends TimeBasedPoseFunction.Builder<B>{
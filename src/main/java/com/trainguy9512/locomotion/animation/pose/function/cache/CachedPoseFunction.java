@@ -27,12 +27,15 @@ public class CachedPoseFunction implements PoseFunction<LocalSpacePose> {
         return new CachedPoseFunction(input, resetsUponRelevant);
     }
 
+    /**
+     * Synchronized, since the same cached pose can be computed by branches that are evaluated in parallel.
+     */
     @Override
-    public @NotNull LocalSpacePose compute(FunctionInterpolationContext context) {
+    public synchronized @NotNull LocalSpacePose compute(FunctionInterpolationContext context) {
         if (this.poseCache == null) {
             this.poseCache = this.input.compute(context);
         }
-        return LocalSpacePose.of(this.poseCache);
+        return context.poseArena().borrowCopyOf(this.poseCache);
     }
 
     @Override
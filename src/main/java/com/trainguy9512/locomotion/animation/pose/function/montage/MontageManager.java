@@ -1,12 +1,14 @@
 package com.trainguy9512.locomotion.animation.pose.function.montage;
 
+import com.trainguy9512.locomotion.LocomotionMain;
 import com.trainguy9512.locomotion.animation.data.OnTickDriverContainer;
 import com.trainguy9512.locomotion.animation.driver.VariableDriver;
 import com.trainguy9512.locomotion.animation.joint.JointChannel;
 import com.trainguy9512.locomotion.animation.joint.skeleton.JointSkeleton;
 import com.trainguy9512.locomotion.animation.pose.LocalSpacePose;
+import com.trainguy9512.locomotion.animation.pose.PoseArena;
 import com.trainguy9512.locomotion.animation.sequence.AnimationSequence;
-import com.trainguy9512.locomotion.resource.LocomotionResources;
+import com.trainguy9512.locomotion.animation.sequence.SequenceCursor;
 import com.trainguy9512.locomotion.util.TimeSpan;
 import com.trainguy9512.locomotion.util.Transition;
 import net.minecraft.resources.ResourceLocation;
@@ -92,16 +94,27 @@ public class MontageManager {
         return false;
     }
 
-    public LocalSpacePose getLayeredSlotPose(LocalSpacePose basePose, String slot, JointSkeleton jointSkeleton, float partialTicks) {
-        LocalSpacePose slotPose = LocalSpacePose.of(basePose);
-        LocalSpacePose previousPose = LocalSpacePose.of(basePose);
+    /**
+     * Layers every montage playing in the provided slot on top of the base pose.
+     * @param basePose              Pose to layer montages onto. The base pose is modified and returned.
+     * @param slot                  Slot identifier
+     * @param jointSkeleton         Joint skeleton to sample montage poses with
+     * @param partialTicks          Partial ticks for interpolating montage times
+     * @param poseArena             Arena to borrow scratch poses from
+     */
+    public LocalSpacePose getLayeredSlotPose(LocalSpacePose basePose, String slot, JointSkeleton jointSkeleton, float partialTicks, PoseArena poseArena) {
+        LocalSpacePose slotPose = basePose;
+        LocalSpacePose previousPose = null;
         for (MontageInstance montageInstance : this.montageStack) {
             if (montageInstance.configuration.slots().contains(slot)) {
 
+                if (previousPose == null) {
+                    previousPose = poseArena.borrowCopyOf(slotPose);
+                }
                 float weight = montageInstance.getWeight(partialTicks);
                 Transition transition = montageInstance.isInEntranceTransition(partialTicks) ? montageInstance.configuration.transitionIn() : montageInstance.configuration.transitionOut().withInverseEasing();
                 slotPose.interpolatedByTransition(
-                        montageInstance.getPose(jointSkeleton, partialTicks),
+                        montageInstance.getPose(jointSkeleton, partialTicks, poseArena.borrowLocalSpacePose()),
                         weight,
                         transition,
                         montageInstance.configuration.blendMask()
@@ -114,8 +127,8 @@ public class MontageManager {
                             null
                     );
                 }
-                previousPose = LocalSpacePose.of(slotPose);
-//                slotPose = slotPose.interpolated(montageInstance.getPose(jointSkeleton, partialTicks), montageInstance.getWeight(partialTicks), null, null);
+                previousPose.copyFrom(slotPose);
+//                slotPose = slotPose.interpolated(montageInstance.getPose(jointSkeleton, partialTicks, poseArena.borrowLocalSpacePose()), montageInstance.getWeight(partialTicks), null, null);
             }
         }
         return slotPose;
@@ -136,6 +149,8 @@ public class MontageManager {
     private static class MontageInstance {
         private final VariableDriver<Float> ticksElapsed;
         private final MontageConfiguration configuration;
+        private final SequenceCursor sequenceCursor;
+        private final boolean precomputeAdditiveSequence;
 
         private final float playRate;
         private final float tickLength;
@@ -145,15 +160,22 @@ public class MontageManager {
         private Transition interruptTransition;
 
         private final ResourceLocation additiveBasePoseLocation;
-        private LocalSpacePose additiveBasePose;
-        private LocalSpacePose additiveSubtractionPose;
+        private volatile LocalSpacePose additiveBasePose;
+        private volatile LocalSpacePose additiveSubtractionPose;
 
         private MontageInstance(MontageConfiguration configuration, OnTickDriverContainer driverContainer) {
             this.ticksElapsed = VariableDriver.ofFloat(() -> configuration.startTimeOffset().inTicks());
             this.configuration = configuration;
+            this.sequenceCursor = SequenceCursor.of(configuration.animationSequence());
 
             this.playRate = configuration.playRateFunction().apply(driverContainer);
-            this.tickLength = LocomotionResources.getOrThrowAnimationSequence(configuration.animationSequence()).length().inTicks();
+            AnimationSequence sequence = this.sequenceCursor.getSequenceHandle().resolve().get();
+            this.tickLength = sequence.length().inTicks();
+            this.precomputeAdditiveSequence = configuration.isAdditive() && LocomotionMain.CONFIG.data().animationSequences.precomputeAdditiveSequences;
+            if (this.precomputeAdditiveSequence) {
+                // Bakes the additive variant when the montage is played, rather than when it is first computed.
+                sequence.getAdditive(configuration.startTimeOffset());
+            }
 
             this.hasBeenInterrupted = false;
             this.interruptTick = 0;
@@ -195,39 +217,52 @@ public class MontageManager {
             return false;
         }
 
-        private LocalSpacePose getPose(JointSkeleton jointSkeleton, float partialTicks) {
-            LocalSpacePose pose = AnimationSequence.samplePose(
-                    jointSkeleton,
-                    this.configuration.animationSequence(),
-                    TimeSpan.ofTicks(this.ticksElapsed.getValueInterpolated(partialTicks)),
-                    false
-            );
+        /**
+         * Samples the montage onto the destination pose. Every slot function for the montage's slot evaluates the same
+         * instance, and slots can be evaluated by parallel branches, so sampling is synchronized to keep the sequence
+         * cursor and the lazily sampled additive poses from being used by two threads at once.
+         */
+        private synchronized LocalSpacePose getPose(JointSkeleton jointSkeleton, float partialTicks, LocalSpacePose destination) {
+            TimeSpan time = TimeSpan.ofTicks(this.ticksElapsed.getValueInterpolated(partialTicks));
+            if (this.precomputeAdditiveSequence) {
+                // The additive variant already has the subtraction pose removed, so only the base pose is left to apply.
+                AnimationSequence additiveSequence = this.sequenceCursor.getSequenceHandle().get().getAdditive(this.configuration.startTimeOffset());
+                LocalSpacePose pose = this.sequenceCursor.samplePose(additiveSequence, jointSkeleton, time, false, destination);
+                pose.multiply(this.getAdditiveBasePose(jointSkeleton), JointChannel.TransformSpace.COMPONENT);
+                return pose;
+            }
+            LocalSpacePose pose = this.sequenceCursor.samplePose(jointSkeleton, time, false, destination);
             if (this.configuration.isAdditive()) {
-                // If the additive base pose and the additive subtraction poses are null, initialize them (only initialized when needed.
-                if (this.additiveBasePose == null) {
-                    this.additiveBasePose = AnimationSequence.samplePose(
-                            jointSkeleton,
-                            this.additiveBasePoseLocation,
-                            TimeSpan.ofTicks(0),
-                            false
-                    );
-                }
+                // If the additive subtraction pose is null, initialize it (only initialized when needed).
                 if (this.additiveSubtractionPose == null) {
-                    this.additiveSubtractionPose = AnimationSequence.samplePose(
+                    LocalSpacePose additiveSubtractionPose = AnimationSequence.samplePose(
                             jointSkeleton,
                             this.configuration.animationSequence(),
                             this.configuration.startTimeOffset(),
                             false
                     );
-                    this.additiveSubtractionPose.invert();
+                    additiveSubtractionPose.invert();
+                    this.additiveSubtractionPose = additiveSubtractionPose;
                 }
 
                 pose.multiply(this.additiveSubtractionPose, JointChannel.TransformSpace.COMPONENT);
-                pose.multiply(this.additiveBasePose, JointChannel.TransformSpace.COMPONENT);
+                pose.multiply(this.getAdditiveBasePose(jointSkeleton), JointChannel.TransformSpace.COMPONENT);
             }
             return pose;
         }
 
+        private LocalSpacePose getAdditiveBasePose(JointSkeleton jointSkeleton) {
+            if (this.additiveBasePose == null) {
+                this.additiveBasePose = AnimationSequence.samplePose(
+                        jointSkeleton,
+                        this.additiveBasePoseLocation,
+                        TimeSpan.ofTicks(0),
+                        false
+                );
+            }
+            return this.additiveBasePose;
+        }
+
         private boolean isInEntranceTransition(float partialTicks) {
             float elapsedTicksInterpolated = this.ticksElapsed.getValueInterpolated(partialTicks);
             float entranceTransitionEndTime = this.configuration.startTimeOffset().inTicks() + this.configuration.transitionIn().duration().inTicks();
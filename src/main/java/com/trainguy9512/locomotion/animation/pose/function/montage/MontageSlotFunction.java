@@ -3,6 +3,7 @@ package com.trainguy9512.locomotion.animation.pose.function.montage;
 import com.trainguy9512.locomotion.animation.pose.LocalSpacePose;
 import com.trainguy9512.locomotion.animation.pose.function.AnimationPlayer;
 import com.trainguy9512.locomotion.animation.pose.function.PoseFunction;
+import com.trainguy9512.locomotion.animation.pose.function.PoseProgram;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Optional;
@@ -15,7 +16,17 @@ public record MontageSlotFunction(PoseFunction<LocalSpacePose> inputPose, String
 
     @Override
     public @NotNull LocalSpacePose compute(FunctionInterpolationContext context) {
-        return context.montageManager().getLayeredSlotPose(this.inputPose.compute(context), this.slot, context.driverContainer().getJointSkeleton(), context.partialTicks());
+        return this.layerSlot(this.inputPose.compute(context), context);
+    }
+
+    @Override
+    public int compile(PoseProgram.Builder program) {
+        int inputRegister = this.inputPose.compile(program);
+        return program.addInstruction((context, registers) -> this.layerSlot(registers.get(inputRegister), context));
+    }
+
+    private LocalSpacePose layerSlot(LocalSpacePose inputPose, FunctionInterpolationContext context) {
+        return context.montageManager().getLayeredSlotPose(inputPose, this.slot, context.driverContainer().getJointSkeleton(), context.partialTicks(), context.poseArena());
     }
 
     @Override
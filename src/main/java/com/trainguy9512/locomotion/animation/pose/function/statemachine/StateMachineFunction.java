@@ -16,8 +16,8 @@ import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
 /**
  * Pose function that manages transitions between a set of enum-identified states based on instance-defined transition logic.
@@ -36,8 +36,10 @@ public class StateMachineFunction<S extends Enum<S>> extends TimeBasedPoseFuncti
     private static final Logger LOGGER = LogManager.getLogger("Locomotion/StateMachineFunction");
 
     private final Map<S, State<S>> states;
+    private final Map<S, StateTransition<S>[]> sortedOutboundTransitions;
     private final Function<FunctionEvaluationState, S> initialState;
     private final List<StateBlendLayer> stateBlendLayerStack;
+    private final StateTransition.TransitionContext transitionContext;
 
     private long lastUpdateTick;
     private final boolean resetsUponRelevant;
@@ -45,14 +47,17 @@ public class StateMachineFunction<S extends Enum<S>> extends TimeBasedPoseFuncti
 
     private StateMachineFunction(
             Map<S, State<S>> states,
+            Map<S, StateTransition<S>[]> sortedOutboundTransitions,
             Function<FunctionEvaluationState, S> initialState,
             boolean resetsUponRelevant,
             List<DriverKey<VariableDriver<S>>> driversToUpdateOnStateChanged
     ) {
         super(evaluationState -> true, evaluationState -> 1f, TimeSpan.ZERO);
         this.states = states;
+        this.sortedOutboundTransitions = sortedOutboundTransitions;
         this.initialState = initialState;
         this.stateBlendLayerStack = new ArrayList<>();
+        this.transitionContext = StateTransition.TransitionContext.of(null, TimeSpan.ZERO, 0, 0, null, TimeSpan.ZERO);
 
         this.lastUpdateTick = 0;
         this.resetsUponRelevant = resetsUponRelevant;
@@ -167,37 +172,41 @@ public class StateMachineFunction<S extends Enum<S>> extends TimeBasedPoseFuncti
 
     }
 
+    /**
+     * Finds the highest priority transition out of the current active state whose condition is true.
+     *
+     * <p>Transitions are sorted by priority when the state machine is built, so conditions are tested in order until one
+     * passes, after which only the remaining transitions of the same priority are tested. If more than one of those passes,
+     * one is picked at random, with each passing transition being kept with a chance of one over the number passed so far.</p>
+     */
     private Optional<StateTransition<S>> getPotentialTransitionFromCurrentState(FunctionEvaluationState evaluationState) {
         // Get the current active state
-        S currentActiveStateIdentifier = this.stateBlendLayerStack.getLast().identifier;
-        State<S> currentActiveState = this.states.get(currentActiveStateIdentifier);
-
-        // Filter each potential state transition by whether it's valid, then filter by whether its condition predicate is true,
-        // then shuffle it in order to make equal priority transitions randomized and re-order the valid transitions by filter order.
-        return currentActiveState.outboundTransitions.stream()
-                .filter(stateTransition -> {
-                    boolean transitionTargetIncludedInThisMachine = this.states.containsKey(stateTransition.target());
-                    boolean targetIsNotCurrentActiveState = stateTransition.target() != currentActiveStateIdentifier;
-                    if(transitionTargetIncludedInThisMachine && targetIsNotCurrentActiveState){
-                        StateTransition.TransitionContext transitionContext = StateTransition.TransitionContext.of(
-                                evaluationState.driverContainer(),
-                                TimeSpan.ofTicks(this.ticksElapsed.getCurrentValue()),
-                                this.stateBlendLayerStack.getLast().weight.getCurrentValue(),
-                                this.stateBlendLayerStack.getLast().weight.getPreviousValue(),
-                                this.states.get(currentActiveStateIdentifier).inputFunction,
-                                stateTransition.transition().duration()
-                        );
-                        return stateTransition.conditionPredicate().test(transitionContext);
-                    }
-                    return false;
-                })
-                .collect(Collectors.collectingAndThen(Collectors.toList(), collected -> {
-                    Collections.shuffle(collected);
-                    return collected;
-                }))
-                .stream()
-                .sorted()
-                .findFirst();
+        StateBlendLayer currentActiveLayer = this.stateBlendLayerStack.getLast();
+        StateTransition<S>[] outboundTransitions = this.sortedOutboundTransitions.get(currentActiveLayer.identifier);
+
+        this.transitionContext.set(
+                evaluationState.driverContainer(),
+                TimeSpan.ofTicks(this.ticksElapsed.getCurrentValue()),
+                currentActiveLayer.weight.getCurrentValue(),
+                currentActiveLayer.weight.getPreviousValue(),
+                this.states.get(currentActiveLayer.identifier).inputFunction,
+                TimeSpan.ZERO
+        );
+        StateTransition<S> chosenTransition = null;
+        int passedTransitionsOfChosenPriority = 0;
+        for (StateTransition<S> stateTransition : outboundTransitions) {
+            if (chosenTransition != null && stateTransition.priority() != chosenTransition.priority()) {
+                break;
+            }
+            this.transitionContext.setTransitionDuration(stateTransition.transition().duration());
+            if (stateTransition.conditionPredicate().test(this.transitionContext)) {
+                passedTransitionsOfChosenPriority++;
+                if (passedTransitionsOfChosenPriority == 1 || ThreadLocalRandom.current().nextInt(passedTransitionsOfChosenPriority) == 0) {
+                    chosenTransition = stateTransition;
+                }
+            }
+        }
+        return Optional.ofNullable(chosenTransition);
     }
 
     private Set<S> getStatesInLayerStack() {
@@ -361,7 +370,24 @@ public class StateMachineFunction<S extends Enum<S>> extends TimeBasedPoseFuncti
                     LOGGER.warn("State {} in state machine contains no outbound transitions. If this state is entered, it will have no valid path out without re-initializing the state!", state.identifier);
                 }
             }
-            return new StateMachineFunction<>(this.states, this.initialState, this.resetUponRelevant, this.driversToUpdateOnStateChanged);
+            return new StateMachineFunction<>(this.states, this.sortOutboundTransitions(), this.initialState, this.resetUponRelevant, this.driversToUpdateOnStateChanged);
+        }
+
+        /**
+         * Compiles the outbound transitions of each state into an array sorted from highest to lowest priority, leaving
+         * out transitions that can never be taken because their target is the state itself or is not in the state machine.
+         */
+        @SuppressWarnings("unchecked")
+        private Map<S, StateTransition<S>[]> sortOutboundTransitions() {
+            Map<S, StateTransition<S>[]> sortedOutboundTransitions = Maps.newHashMap();
+            for (State<S> state : this.states.values()) {
+                StateTransition<S>[] transitions = state.outboundTransitions.stream()
+                        .filter(transition -> transition.target() != state.identifier && this.states.containsKey(transition.target()))
+                        .sorted()
+                        .toArray(StateTransition[]::new);
+                sortedOutboundTransitions.put(state.identifier, transitions);
+            }
+            return sortedOutboundTransitions;
         }
     }
 
@@ -166,18 +166,72 @@ public record StateTransition<S extends Enum<S>>(
         }
     }
 
-    public record TransitionContext(
-            OnTickDriverContainer driverContainer,
-            TimeSpan timeElapsedInCurrentState,
-            float currentStateWeight,
-            float previousStateWeight,
-            PoseFunction<LocalSpacePose> currentStateInput,
-            TimeSpan transitionDuration
-    ) {
+    /**
+     * Values that transition condition predicates are tested against.
+     *
+     * <p>A state machine keeps a single context that it updates before testing each transition, so predicates should not
+     * hold onto the context after returning.</p>
+     */
+    public static final class TransitionContext {
+
+        private OnTickDriverContainer driverContainer;
+        private TimeSpan timeElapsedInCurrentState;
+        private float currentStateWeight;
+        private float previousStateWeight;
+        private PoseFunction<LocalSpacePose> currentStateInput;
+        private TimeSpan transitionDuration;
+
+        private TransitionContext(OnTickDriverContainer driverContainer, TimeSpan timeElapsedInCurrentState, float currentStateWeight, float previousStateWeight, PoseFunction<LocalSpacePose> currentStateInput, TimeSpan transitionDuration) {
+            this.set(driverContainer, timeElapsedInCurrentState, currentStateWeight, previousStateWeight, currentStateInput, transitionDuration);
+        }
+
         public static TransitionContext of(OnTickDriverContainer dataContainer, TimeSpan timeElapsedInCurrentState, float currentStateWeight, float previousStateWeight, PoseFunction<LocalSpacePose> currentStateInput, TimeSpan transitionDuration) {
             return new TransitionContext(dataContainer, timeElapsedInCurrentState, currentStateWeight, previousStateWeight, currentStateInput, transitionDuration);
         }
 
+        /**
+         * Overwrites the values of the context with the state of the current tick.
+         */
+        void set(OnTickDriverContainer driverContainer, TimeSpan timeElapsedInCurrentState, float currentStateWeight, float previousStateWeight, PoseFunction<LocalSpacePose> currentStateInput, TimeSpan transitionDuration) {
+            this.driverContainer = driverContainer;
+            this.timeElapsedInCurrentState = timeElapsedInCurrentState;
+            this.currentStateWeight = currentStateWeight;
+            this.previousStateWeight = previousStateWeight;
+            this.currentStateInput = currentStateInput;
+            this.transitionDuration = transitionDuration;
+        }
+
+        /**
+         * Sets the duration of the transition that is about to be tested.
+         */
+        void setTransitionDuration(TimeSpan transitionDuration) {
+            this.transitionDuration = transitionDuration;
+        }
+
+        public OnTickDriverContainer driverContainer() {
+            return this.driverContainer;
+        }
+
+        public TimeSpan timeElapsedInCurrentState() {
+            return this.timeElapsedInCurrentState;
+        }
+
+        public float currentStateWeight() {
+            return this.currentStateWeight;
+        }
+
+        public float previousStateWeight() {
+            return this.previousStateWeight;
+        }
+
+        public PoseFunction<LocalSpacePose> currentStateInput() {
+            return this.currentStateInput;
+        }
+
+        public TimeSpan transitionDuration() {
+            return this.transitionDuration;
+        }
+
         public Optional<AnimationPlayer> getMostRelevantAnimationPlayer() {
             return this.currentStateInput.testForMostRelevantAnimationPlayer();
         }
@@ -1,32 +1,49 @@
 package com.trainguy9512.locomotion.animation.sequence;
 
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Maps;
 import com.mojang.math.Axis;
 import com.trainguy9512.locomotion.LocomotionMain;
-import com.trainguy9512.locomotion.animation.joint.JointChannel;
 import com.trainguy9512.locomotion.animation.joint.skeleton.JointSkeleton;
 import com.trainguy9512.locomotion.animation.pose.LocalSpacePose;
 import com.trainguy9512.locomotion.resource.LocomotionResources;
-import com.trainguy9512.locomotion.util.Interpolator;
+import com.trainguy9512.locomotion.util.BoolTimeline;
+import com.trainguy9512.locomotion.util.Easing;
+import com.trainguy9512.locomotion.util.FloatTimeline;
+import com.trainguy9512.locomotion.util.KeyframeTimeline;
+import com.trainguy9512.locomotion.util.QuatTimeline;
 import com.trainguy9512.locomotion.util.TimeSpan;
-import com.trainguy9512.locomotion.util.Timeline;
+import com.trainguy9512.locomotion.util.Vec3Timeline;
 import net.minecraft.resources.ResourceLocation;
+import org.jetbrains.annotations.Nullable;
 import org.joml.Quaternionf;
 import org.joml.Vector3f;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public record AnimationSequence(
-        Map<String, Timeline<Vector3f>> translationTimelines,
-        Map<String, Timeline<Quaternionf>> rotationTimelines,
-        Map<String, Timeline<Vector3f>> scaleTimelines,
-        Map<String, Timeline<Boolean>> visibilityTimelines,
-        Map<String, Timeline<Float>> customAttributeTimelines,
+        Map<String, Vec3Timeline> translationTimelines,
+        Map<String, QuatTimeline> rotationTimelines,
+        Map<String, Vec3Timeline> scaleTimelines,
+        Map<String, BoolTimeline> visibilityTimelines,
+        Map<String, FloatTimeline> customAttributeTimelines,
         Map<String, List<TimeSpan>> timeMarkers,
+        TimeMarkerIndex timeMarkerIndex,
         ResourceLocation jointSkeletonLocation,
-        TimeSpan length
+        TimeSpan length,
+        @Nullable ResampledSequence resampledSequence
 ) {
 
+    /**
+     * Additive variants of loaded sequences, by their reference time in seconds. Keys are held weakly and compared by
+     * identity, so variants are dropped along with their sequence once it is unloaded.
+     */
+    private static final Map<AnimationSequence, Map<Float, AnimationSequence>> ADDITIVE_SEQUENCES = CacheBuilder.newBuilder()
+            .weakKeys()
+            .<AnimationSequence, Map<Float, AnimationSequence>>build()
+            .asMap();
+
     /**
      * Creates an animation pose from a point in time within the provided animation sequence
      * @param jointSkeleton         Template joint skeleton
@@ -36,19 +53,50 @@ public record AnimationSequence(
      * @return                      New animation pose
      */
     public static LocalSpacePose samplePose(JointSkeleton jointSkeleton, ResourceLocation sequenceLocation, TimeSpan time, boolean looping) {
-        AnimationSequence animationSequence = LocomotionResources.getOrThrowAnimationSequence(sequenceLocation);
-        LocalSpacePose pose = LocalSpacePose.of(jointSkeleton);
-        for (String joint : jointSkeleton.getJoints()) {
-            JointChannel channel = JointChannel.ofTranslationRotationScaleQuaternion(
-                    animationSequence.translationTimelines().get(joint).getValueAtTime(time.inSeconds(), looping),
-                    animationSequence.rotationTimelines().get(joint).getValueAtTime(time.inSeconds(), looping),
-                    animationSequence.scaleTimelines().get(joint).getValueAtTime(time.inSeconds(), looping),
-                    animationSequence.visibilityTimelines().get(joint).getValueAtTime(time.inSeconds(), looping)
-            );
-            pose.setJointChannel(joint, channel);
+        return samplePose(jointSkeleton, sequenceLocation, time, looping, LocalSpacePose.of(jointSkeleton));
+    }
+
+    /**
+     * Samples a point in time within the provided animation sequence onto an existing pose, through the
+     * {@link SampledPoseCache}.
+     * @param jointSkeleton         Template joint skeleton
+     * @param sequenceLocation      Animation sequence resource location
+     * @param time                  Point of time in the animation to get.
+     * @param looping               Whether the animation should be looped or not.
+     * @param pose                  Pose to save the sampled pose onto. Every joint and custom attribute is overwritten.
+     * @return                      Provided pose
+     */
+    public static LocalSpacePose samplePose(JointSkeleton jointSkeleton, ResourceLocation sequenceLocation, TimeSpan time, boolean looping, LocalSpacePose pose) {
+        return SampledPoseCache.samplePose(LocomotionResources.getOrThrowAnimationSequence(sequenceLocation), jointSkeleton, time, looping, pose, AnimationSequence::samplePose);
+    }
+
+    /**
+     * Samples a point in time within this animation sequence onto an existing pose.
+     * @param jointSkeleton         Template joint skeleton
+     * @param time                  Point of time in the animation to get.
+     * @param looping               Whether the animation should be looped or not.
+     * @param pose                  Pose to save the sampled pose onto. Every joint and custom attribute is overwritten.
+     * @return                      Provided pose
+     */
+    public LocalSpacePose samplePose(JointSkeleton jointSkeleton, TimeSpan time, boolean looping, LocalSpacePose pose) {
+        float timeSeconds = time.inSeconds();
+        ResampledSequence resampledSequence = this.resampledSequence;
+        if (resampledSequence != null && resampledSequence.getJointSkeleton() == jointSkeleton) {
+            resampledSequence.sample(timeSeconds, looping, pose);
+            return pose;
+        }
+        Vector3f vector = new Vector3f();
+        Quaternionf rotation = new Quaternionf();
+        for (int joint = 0; joint < jointSkeleton.getJointCount(); joint++) {
+            String jointName = jointSkeleton.getJointName(joint);
+            pose.setJointTranslation(joint, this.translationTimelines.get(jointName).sample(timeSeconds, looping, vector));
+            pose.setJointRotation(joint, this.rotationTimelines.get(jointName).sample(timeSeconds, looping, rotation));
+            pose.setJointScale(joint, this.scaleTimelines.get(jointName).sample(timeSeconds, looping, vector));
+            pose.setJointVisibility(joint, this.visibilityTimelines.get(jointName).sample(timeSeconds, looping));
         }
-        for (String customAttribute : animationSequence.customAttributeTimelines.keySet()) {
-            pose.loadCustomAttributeValue(customAttribute, animationSequence.customAttributeTimelines.get(customAttribute).getValueAtTime(time.inSeconds()));
+        pose.resetCustomAttributesToDefault();
+        for (String customAttribute : this.customAttributeTimelines.keySet()) {
+            pose.loadCustomAttributeValue(customAttribute, this.customAttributeTimelines.get(customAttribute).sample(timeSeconds));
         }
         return pose;
     }
@@ -59,6 +107,9 @@ public record AnimationSequence(
 
     /**
      * Returns a set of marker identifiers within the specified time range.
+     * <p>
+     * Allocates a new set on every call. Code that queries markers regularly should query the
+     * {@link AnimationSequence#timeMarkerIndex() time marker index} with a reused set instead.
      *
      * @param start  Start time
      * @param end    End time
@@ -66,36 +117,43 @@ public record AnimationSequence(
      * @return Set of marker identifiers.
      */
     public Set<String> getMarkersInRange(TimeSpan start, TimeSpan end, boolean looped) {
-        float startSeconds = looped ? start.inSeconds() % this.length.inSeconds() : start.inSeconds();
-        float endSeconds = looped ? end.inSeconds() % this.length.inSeconds() : end.inSeconds();
+        BitSet markerIds = this.timeMarkerIndex.getMarkersInRange(start.inSeconds(), end.inSeconds(), looped, this.length.inSeconds(), new BitSet());
         Set<String> markersToReturn = new HashSet<>();
-        this.timeMarkers.forEach((identifier, times) -> times.forEach(markerTime -> {
-            float markerTimeSeconds = markerTime.inSeconds();
-
-            boolean isRangeWrappedAroundLoop = endSeconds < startSeconds;
-            if (isRangeWrappedAroundLoop && (markerTimeSeconds <= endSeconds || markerTimeSeconds > startSeconds)) {
-                markersToReturn.add(identifier);
-            } else if (markerTimeSeconds > startSeconds && markerTimeSeconds <= endSeconds) {
-                markersToReturn.add(identifier);
-            }
-        }));
+        for (int markerId = markerIds.nextSetBit(0); markerId >= 0; markerId = markerIds.nextSetBit(markerId + 1)) {
+            markersToReturn.add(this.timeMarkerIndex.getIdentifier(markerId));
+        }
         return markersToReturn;
     }
 
+    /**
+     * Creates a copy of this sequence with timelines for every joint in its joint skeleton, filling in joints that
+     * have no animation data. Timelines that hold the same value throughout are reduced to a single keyframe.
+     * @return                      Baked animation sequence
+     */
     public AnimationSequence getBaked() {
+        return this.getBaked(LocomotionResources.getOrThrowJointSkeleton(this.jointSkeletonLocation));
+    }
+
+    /**
+     * Creates a copy of this sequence with timelines for every joint in the provided joint skeleton, filling in joints
+     * that have no animation data. Timelines that hold the same value throughout are reduced to a single keyframe.
+     * Timelines are copied before being reduced, so this sequence is left unchanged.
+     * @param jointSkeleton         Joint skeleton of this sequence, for baking before the skeleton has been registered.
+     * @return                      Baked animation sequence
+     */
+    public AnimationSequence getBaked(JointSkeleton jointSkeleton) {
         Builder bakedSequenceBuilder = AnimationSequence.builder(this.length, this.jointSkeletonLocation);
-        JointSkeleton jointSkeleton = LocomotionResources.getOrThrowJointSkeleton(this.jointSkeletonLocation);
         for (String joint : jointSkeleton.getJoints()) {
             if (this.translationTimelines.containsKey(joint)) {
-                bakedSequenceBuilder.putJointTranslationTimeline(joint, this.translationTimelines.get(joint));
-                bakedSequenceBuilder.putJointRotationTimeline(joint, this.rotationTimelines.get(joint));
-                bakedSequenceBuilder.putJointScaleTimeline(joint, this.scaleTimelines.get(joint));
-                bakedSequenceBuilder.putJointVisibilityTimeline(joint, this.visibilityTimelines.get(joint));
+                bakedSequenceBuilder.putJointTranslationTimeline(joint, this.translationTimelines.get(joint).copy().collapseIfConstant());
+                bakedSequenceBuilder.putJointRotationTimeline(joint, this.rotationTimelines.get(joint).copy().collapseIfConstant());
+                bakedSequenceBuilder.putJointScaleTimeline(joint, this.scaleTimelines.get(joint).copy().collapseIfConstant());
+                bakedSequenceBuilder.putJointVisibilityTimeline(joint, this.visibilityTimelines.get(joint).copy().collapseIfConstant());
             } else {
-                bakedSequenceBuilder.putJointTranslationTimeline(joint, Timeline.of(Interpolator.VECTOR_FLOAT, this.length.inSeconds()).addKeyframe(0, new Vector3f(0, 0, 0)));
-                bakedSequenceBuilder.putJointRotationTimeline(joint, Timeline.of(Interpolator.QUATERNION, this.length.inSeconds()).addKeyframe(0, Axis.XP.rotation(0f)));
-                bakedSequenceBuilder.putJointScaleTimeline(joint, Timeline.of(Interpolator.VECTOR_FLOAT, this.length.inSeconds()).addKeyframe(0, new Vector3f(0, 0, 0)));
-                bakedSequenceBuilder.putJointVisibilityTimeline(joint, Timeline.of(Interpolator.BOOLEAN_KEYFRAME, this.length.inSeconds()).addKeyframe(0, true));
+                bakedSequenceBuilder.putJointTranslationTimeline(joint, Vec3Timeline.of(this.length.inSeconds()).addKeyframe(0, new Vector3f(0, 0, 0)));
+                bakedSequenceBuilder.putJointRotationTimeline(joint, QuatTimeline.of(this.length.inSeconds()).addKeyframe(0, Axis.XP.rotation(0f)));
+                bakedSequenceBuilder.putJointScaleTimeline(joint, Vec3Timeline.of(this.length.inSeconds()).addKeyframe(0, new Vector3f(0, 0, 0)));
+                bakedSequenceBuilder.putJointVisibilityTimeline(joint, BoolTimeline.of(this.length.inSeconds()).addKeyframe(0, true));
             }
         }
         for (String timeMarker : this.timeMarkers.keySet()) {
@@ -105,22 +163,214 @@ public record AnimationSequence(
         }
         for (String customAttribute : jointSkeleton.getCustomAttributeDefaults().keySet()) {
             if (this.customAttributeTimelines.containsKey(customAttribute)) {
-                bakedSequenceBuilder.putCustomAttributeTimeline(customAttribute, this.customAttributeTimelines.get(customAttribute));
+                bakedSequenceBuilder.putCustomAttributeTimeline(customAttribute, this.customAttributeTimelines.get(customAttribute).copy().collapseIfConstant());
             }
         }
         return bakedSequenceBuilder.build();
     }
 
+    /**
+     * Creates a copy of this sequence that additionally resamples every track at a fixed rate, so that
+     * {@link AnimationSequence#samplePose} can sample it without searching keyframes. The sequence should be baked.
+     * <p>
+     * The resampled frames are stored at full precision next to the keyframes, and sampling reads them instead of the
+     * keyframes, so the sequence takes more memory than a compressed one and is never sampled through the keyframe
+     * walk of a {@link SequenceCursor}. Resampling is meant as an opt-in trade of memory for sampling speed.
+     * @param jointSkeleton         Joint skeleton of this sequence
+     * @param sampleRate            Frames per second to resample at
+     * @return                      Resampled animation sequence
+     */
+    public AnimationSequence resampled(JointSkeleton jointSkeleton, float sampleRate) {
+        return new AnimationSequence(
+                this.translationTimelines,
+                this.rotationTimelines,
+                this.scaleTimelines,
+                this.visibilityTimelines,
+                this.customAttributeTimelines,
+                this.timeMarkers,
+                this.timeMarkerIndex,
+                this.jointSkeletonLocation,
+                this.length,
+                ResampledSequence.of(this, jointSkeleton, sampleRate)
+        );
+    }
+
+    /**
+     * Bakes the additive variants of this sequence relative to its beginning and end ahead of time, so that additive
+     * players using either reference point do not bake them on first use.
+     * @return                      This animation sequence
+     */
+    public AnimationSequence precomputeAdditive() {
+        this.getAdditive(TimeSpan.ZERO);
+        this.getAdditive(this.length);
+        return this;
+    }
+
+    /**
+     * Returns the additive variant of this sequence relative to the provided reference time, baking it the first time
+     * it is requested. Variants are shared by everything that plays this sequence with the same reference time.
+     * @param referenceTime         Point of time in the sequence to subtract, sampled without looping.
+     * @return                      Additive animation sequence
+     * @see AnimationSequence#getBakedAdditive(TimeSpan)
+     */
+    public AnimationSequence getAdditive(TimeSpan referenceTime) {
+        return ADDITIVE_SEQUENCES.computeIfAbsent(this, sequence -> new ConcurrentHashMap<>())
+                .computeIfAbsent(referenceTime.inSeconds(), referenceSeconds -> this.getBakedAdditive(referenceTime));
+    }
+
+    /**
+     * Creates an additive copy of this sequence, where every joint transform is stored relative to the joint's
+     * transform at the reference time. Sampling it gives the same pose as sampling this sequence and multiplying it by
+     * the inverted reference pose in component space, so that additive players do not have to subtract the reference
+     * pose themselves. The sequence should be baked, and the copy is resampled and quantized if this sequence is.
+     * <p>
+     * Rotations and scales keep their keyframes. Translations also depend on the rotation and scale of the joint, so
+     * they are stored at every keyframe of all three timelines, unless the reference translation cancels out. These
+     * translations are interpolated linearly between keyframes instead of with the authored easing, which makes the
+     * variant an approximation that can differ slightly from subtracting the reference pose at runtime.
+     * @param referenceTime         Point of time in the sequence to subtract, sampled without looping.
+     * @return                      Additive animation sequence
+     */
+    public AnimationSequence getBakedAdditive(TimeSpan referenceTime) {
+        float length = this.length.inSeconds();
+        float referenceSeconds = referenceTime.inSeconds();
+        Builder additiveSequenceBuilder = AnimationSequence.builder(this.length, this.jointSkeletonLocation);
+        Vector3f referenceTranslation = new Vector3f();
+        Quaternionf referenceRotation = new Quaternionf();
+        Vector3f referenceScale = new Vector3f();
+        Vector3f translation = new Vector3f();
+        Quaternionf rotation = new Quaternionf();
+        Vector3f scale = new Vector3f();
+        boolean quantized = false;
+        for (String joint : this.translationTimelines.keySet()) {
+            Vec3Timeline translationTimeline = this.translationTimelines.get(joint);
+            QuatTimeline rotationTimeline = this.rotationTimelines.get(joint);
+            Vec3Timeline scaleTimeline = this.scaleTimelines.get(joint);
+            quantized |= rotationTimeline.isQuantized();
+
+            // Inverse of the reference transform, the same as LocalSpacePose#invert.
+            rotationTimeline.sample(referenceSeconds, false, referenceRotation).conjugate();
+            scaleTimeline.sample(referenceSeconds, false, referenceScale);
+            referenceScale.set(1f / referenceScale.x(), 1f / referenceScale.y(), 1f / referenceScale.z());
+            translationTimeline.sample(referenceSeconds, false, referenceTranslation).negate().rotate(referenceRotation).mul(referenceScale);
+
+            // t = t1 + r1 * (s1 * t2), r = r1 * r2, s = s1 * s2, with the reference as the second transform.
+            QuatTimeline additiveRotationTimeline = QuatTimeline.of(length, rotationTimeline.getKeyframeCount());
+            for (int keyframe = 0; keyframe < rotationTimeline.getKeyframeCount(); keyframe++) {
+                rotationTimeline.getKeyframeValue(keyframe, rotation).mul(referenceRotation);
+                additiveRotationTimeline.addKeyframe(rotationTimeline.getKeyframeTime(keyframe), rotation, rotationTimeline.getKeyframeEasing(keyframe));
+            }
+            Vec3Timeline additiveScaleTimeline = Vec3Timeline.of(length, scaleTimeline.getKeyframeCount());
+            for (int keyframe = 0; keyframe < scaleTimeline.getKeyframeCount(); keyframe++) {
+                scaleTimeline.getKeyframeValue(keyframe, scale).mul(referenceScale);
+                additiveScaleTimeline.addKeyframe(scaleTimeline.getKeyframeTime(keyframe), scale, scaleTimeline.getKeyframeEasing(keyframe));
+            }
+            Vec3Timeline additiveTranslationTimeline;
+            if (referenceTranslation.equals(0, 0, 0)) {
+                additiveTranslationTimeline = Vec3Timeline.of(length, translationTimeline.getKeyframeCount());
+                for (int keyframe = 0; keyframe < translationTimeline.getKeyframeCount(); keyframe++) {
+                    additiveTranslationTimeline.addKeyframe(translationTimeline.getKeyframeTime(keyframe), translationTimeline.getKeyframeValue(keyframe, translation), translationTimeline.getKeyframeEasing(keyframe));
+                }
+            } else {
+                TreeSet<Float> keyframeTimes = new TreeSet<>();
+                for (KeyframeTimeline<?, ?> timeline : List.of(translationTimeline, rotationTimeline, scaleTimeline)) {
+                    for (int keyframe = 0; keyframe < timeline.getKeyframeCount(); keyframe++) {
+                        keyframeTimes.add(timeline.getKeyframeTime(keyframe));
+                    }
+                }
+                additiveTranslationTimeline = Vec3Timeline.of(length, keyframeTimes.size());
+                for (float time : keyframeTimes) {
+                    rotationTimeline.sample(time, rotation);
+                    scaleTimeline.sample(time, scale);
+                    translationTimeline.sample(time, translation).add(referenceTranslation.mul(scale, new Vector3f()).rotate(rotation));
+                    additiveTranslationTimeline.addKeyframe(time, translation, Easing.LINEAR);
+                }
+            }
+            additiveSequenceBuilder.putJointTranslationTimeline(joint, additiveTranslationTimeline.collapseIfConstant());
+            additiveSequenceBuilder.putJointRotationTimeline(joint, additiveRotationTimeline.collapseIfConstant());
+            additiveSequenceBuilder.putJointScaleTimeline(joint, additiveScaleTimeline.collapseIfConstant());
+            additiveSequenceBuilder.putJointVisibilityTimeline(joint, this.visibilityTimelines.get(joint));
+        }
+        this.customAttributeTimelines.forEach(additiveSequenceBuilder::putCustomAttributeTimeline);
+        for (String timeMarker : this.timeMarkers.keySet()) {
+            for (TimeSpan time : this.timeMarkers.get(timeMarker)) {
+                additiveSequenceBuilder.putTimeMarker(timeMarker, time);
+            }
+        }
+
+        AnimationSequence additiveSequence = additiveSequenceBuilder.build();
+        if (quantized) {
+            additiveSequence.quantize();
+        }
+        if (this.resampledSequence != null) {
+            additiveSequence = additiveSequence.resampled(this.resampledSequence.getJointSkeleton(), this.resampledSequence.getSampleRate());
+        }
+        return additiveSequence;
+    }
+
+    /**
+     * Lossily compresses the timelines of this sequence in place. Keyframes that can be interpolated from their
+     * neighbours within the tolerances are removed, after which translations and scales are quantized to 16 bits per
+     * component across the range of each timeline, and rotations to 48 bits each.
+     * @param translationTolerance      Largest translation error allowed at a removed keyframe, in pixels
+     * @param rotationTolerance         Largest rotation error allowed at a removed keyframe, in radians
+     * @param scaleTolerance            Largest scale error allowed at a removed keyframe
+     * @param customAttributeTolerance  Largest custom attribute error allowed at a removed keyframe
+     * @return                          This animation sequence
+     */
+    public AnimationSequence compress(float translationTolerance, float rotationTolerance, float scaleTolerance, float customAttributeTolerance) {
+        this.translationTimelines.values().forEach(timeline -> timeline.reduceKeyframes(translationTolerance));
+        this.rotationTimelines.values().forEach(timeline -> timeline.reduceKeyframes(rotationTolerance));
+        this.scaleTimelines.values().forEach(timeline -> timeline.reduceKeyframes(scaleTolerance));
+        this.visibilityTimelines.values().forEach(timeline -> timeline.reduceKeyframes(0));
+        this.customAttributeTimelines.values().forEach(timeline -> timeline.reduceKeyframes(customAttributeTolerance));
+        return this.quantize();
+    }
+
+    /**
+     * Quantizes the translation, rotation and scale timelines of this sequence in place, without removing keyframes.
+     * @return                          This animation sequence
+     */
+    public AnimationSequence quantize() {
+        this.translationTimelines.values().forEach(Vec3Timeline::quantize);
+        this.rotationTimelines.values().forEach(QuatTimeline::quantize);
+        this.scaleTimelines.values().forEach(Vec3Timeline::quantize);
+        return this;
+    }
+
+    /**
+     * Returns the approximate number of bytes used by the keyframes of every timeline in this sequence.
+     */
+    public int getTimelineDataSize() {
+        int size = 0;
+        for (Vec3Timeline timeline : this.translationTimelines.values()) {
+            size += timeline.getKeyframeDataSize();
+        }
+        for (QuatTimeline timeline : this.rotationTimelines.values()) {
+            size += timeline.getKeyframeDataSize();
+        }
+        for (Vec3Timeline timeline : this.scaleTimelines.values()) {
+            size += timeline.getKeyframeDataSize();
+        }
+        for (BoolTimeline timeline : this.visibilityTimelines.values()) {
+            size += timeline.getKeyframeDataSize();
+        }
+        for (FloatTimeline timeline : this.customAttributeTimelines.values()) {
+            size += timeline.getKeyframeDataSize();
+        }
+        return size;
+    }
+
     public static Builder builder(TimeSpan frameLength, ResourceLocation jointSkeletonLocation) {
         return new Builder(frameLength, jointSkeletonLocation);
     }
 
     public static class Builder {
-        private final Map<String, Timeline<Vector3f>> translationTimelines;
-        private final Map<String, Timeline<Quaternionf>> rotationTimelines;
-        private final Map<String, Timeline<Vector3f>> scaleTimelines;
-        private final Map<String, Timeline<Boolean>> visibilityTimelines;
-        private final Map<String, Timeline<Float>> customAttributeTimelines;
+        private final Map<String, Vec3Timeline> translationTimelines;
+        private final Map<String, QuatTimeline> rotationTimelines;
+        private final Map<String, Vec3Timeline> scaleTimelines;
+        private final Map<String, BoolTimeline> visibilityTimelines;
+        private final Map<String, FloatTimeline> customAttributeTimelines;
         private final Map<String, List<TimeSpan>> timeMarkers;
         private final ResourceLocation jointSkeletonLocation;
         private final TimeSpan length;
@@ -136,27 +386,27 @@ public record AnimationSequence(
             this.length = length;
         }
 
-        public Builder putJointTranslationTimeline(String jointName, Timeline<Vector3f> timeline) {
+        public Builder putJointTranslationTimeline(String jointName, Vec3Timeline timeline) {
             this.translationTimelines.put(jointName, timeline);
             return this;
         }
 
-        public Builder putJointRotationTimeline(String jointName, Timeline<Quaternionf> timeline) {
+        public Builder putJointRotationTimeline(String jointName, QuatTimeline timeline) {
             this.rotationTimelines.put(jointName, timeline);
             return this;
         }
 
-        public Builder putJointScaleTimeline(String jointName, Timeline<Vector3f> timeline) {
+        public Builder putJointScaleTimeline(String jointName, Vec3Timeline timeline) {
             this.scaleTimelines.put(jointName, timeline);
             return this;
         }
 
-        public Builder putJointVisibilityTimeline(String jointName, Timeline<Boolean> timeline) {
+        public Builder putJointVisibilityTimeline(String jointName, BoolTimeline timeline) {
             this.visibilityTimelines.put(jointName, timeline);
             return this;
         }
 
-        public Builder putCustomAttributeTimeline(String customAttributeName, Timeline<Float> timeline) {
+        public Builder putCustomAttributeTimeline(String customAttributeName, FloatTimeline timeline) {
             this.customAttributeTimelines.put(customAttributeName, timeline);
             return this;
         }
@@ -177,8 +427,10 @@ public record AnimationSequence(
                     this.visibilityTimelines,
                     this.customAttributeTimelines,
                     this.timeMarkers,
+                    TimeMarkerIndex.of(this.timeMarkers),
                     this.jointSkeletonLocation,
-                    this.length
+                    this.length,
+                    null
             );
         }
 
@@ -0,0 +1,351 @@
+package com.trainguy9512.locomotion.animation.sequence;
+
+import com.trainguy9512.locomotion.animation.joint.skeleton.JointSkeleton;
+import com.trainguy9512.locomotion.animation.pose.LocalSpacePose;
+import com.trainguy9512.locomotion.util.BoolTimeline;
+import com.trainguy9512.locomotion.util.FloatTimeline;
+import com.trainguy9512.locomotion.util.QuatTimeline;
+import com.trainguy9512.locomotion.util.Vec3Timeline;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+
+import java.util.Arrays;
+
+/**
+ * Animation sequence resampled at a fixed rate into contiguous arrays.
+ * <p>
+ * Every joint and custom attribute of the joint skeleton is evaluated once per frame when the sequence is baked, and
+ * the results are stored frame by frame in the joint ordinal order of the skeleton. Sampling a pose is then a matter of
+ * finding the two frames surrounding the sampled time and blending between them, with translation and scale linearly
+ * interpolated and rotation normalized-linearly interpolated. Visibility is not blended, and instead uses the value of
+ * the next frame, matching {@link com.trainguy9512.locomotion.util.Interpolator#BOOLEAN_KEYFRAME}.
+ * <p>
+ * Joints and custom attributes that hold the same value in every frame are detected while baking and only stored once,
+ * in a reference pose. Sampling copies the reference pose in bulk and then only interpolates the animated joints and
+ * custom attributes, which for most sequences are a small part of the skeleton.
+ */
+public class ResampledSequence {
+
+    private static final int TRANSLATION_STRIDE = 3;
+    private static final int ROTATION_STRIDE = 4;
+    private static final int SCALE_STRIDE = 3;
+
+    private final JointSkeleton jointSkeleton;
+    private final float sampleRate;
+    private final float lengthSeconds;
+    private final float frameDuration;
+    private final int frameCount;
+
+    private final LocalSpacePose referencePose;
+    private final int[] animatedJoints;
+    private final int[] animatedCustomAttributes;
+    private final float[] translations;
+    private final float[] rotations;
+    private final float[] scales;
+    private final boolean[] visibilities;
+    private final float[] customAttributeValues;
+
+    private ResampledSequence(
+            JointSkeleton jointSkeleton,
+            float sampleRate,
+            float lengthSeconds,
+            int frameCount,
+            LocalSpacePose referencePose,
+            int[] animatedJoints,
+            int[] animatedCustomAttributes,
+            float[] translations,
+            float[] rotations,
+            float[] scales,
+            boolean[] visibilities,
+            float[] customAttributeValues
+    ) {
+        this.jointSkeleton = jointSkeleton;
+        this.sampleRate = sampleRate;
+        this.lengthSeconds = lengthSeconds;
+        this.frameCount = frameCount;
+        this.frameDuration = frameCount > 1 ? lengthSeconds / (frameCount - 1) : 0;
+        this.referencePose = referencePose;
+        this.animatedJoints = animatedJoints;
+        this.animatedCustomAttributes = animatedCustomAttributes;
+        this.translations = translations;
+        this.rotations = rotations;
+        this.scales = scales;
+        this.visibilities = visibilities;
+        this.customAttributeValues = customAttributeValues;
+    }
+
+    /**
+     * Resamples every track of an animation sequence at a fixed rate.
+     * @param sequence              Animation sequence containing timelines for every joint in the skeleton
+     * @param jointSkeleton         Joint skeleton that determines the order of the resampled joints and custom attributes
+     * @param sampleRate            Frames per second to resample at. The actual frame duration is adjusted slightly so that the
+     *                              last frame lands exactly on the end of the sequence.
+     * @return                      New resampled sequence
+     */
+    public static ResampledSequence of(AnimationSequence sequence, JointSkeleton jointSkeleton, float sampleRate) {
+        if (sampleRate <= 0) {
+            throw new IllegalArgumentException("Resample rate must be greater than zero, got " + sampleRate);
+        }
+        float lengthSeconds = sequence.length().inSeconds();
+        int frameCount = lengthSeconds > 0 ? (int) Math.ceil(lengthSeconds * sampleRate) + 1 : 1;
+        float frameDuration = frameCount > 1 ? lengthSeconds / (frameCount - 1) : 0;
+        int jointCount = jointSkeleton.getJointCount();
+        int customAttributeCount = jointSkeleton.getCustomAttributeCount();
+
+        // Sample every track at every frame, laid out track by track so that constant tracks are easy to find.
+        float[] translations = new float[jointCount * frameCount * TRANSLATION_STRIDE];
+        float[] rotations = new float[jointCount * frameCount * ROTATION_STRIDE];
+        float[] scales = new float[jointCount * frameCount * SCALE_STRIDE];
+        boolean[] visibilities = new boolean[jointCount * frameCount];
+        float[] customAttributeValues = new float[customAttributeCount * frameCount];
+        Vector3f translation = new Vector3f();
+        Quaternionf rotation = new Quaternionf();
+        Vector3f scale = new Vector3f();
+        for (int joint = 0; joint < jointCount; joint++) {
+            String jointName = jointSkeleton.getJointName(joint);
+            Vec3Timeline translationTimeline = sequence.translationTimelines().get(jointName);
+            QuatTimeline rotationTimeline = sequence.rotationTimelines().get(jointName);
+            Vec3Timeline scaleTimeline = sequence.scaleTimelines().get(jointName);
+            BoolTimeline visibilityTimeline = sequence.visibilityTimelines().get(jointName);
+            for (int frame = 0; frame < frameCount; frame++) {
+                float time = getFrameTime(frame, frameCount, frameDuration, lengthSeconds);
+                int jointFrame = joint * frameCount + frame;
+
+                translationTimeline.sample(time, translation);
+                int translationOffset = jointFrame * TRANSLATION_STRIDE;
+                translations[translationOffset] = translation.x;
+                translations[translationOffset + 1] = translation.y;
+                translations[translationOffset + 2] = translation.z;
+
+                rotationTimeline.sample(time, rotation);
+                int rotationOffset = jointFrame * ROTATION_STRIDE;
+                rotations[rotationOffset] = rotation.x;
+                rotations[rotationOffset + 1] = rotation.y;
+                rotations[rotationOffset + 2] = rotation.z;
+                rotations[rotationOffset + 3] = rotation.w;
+
+                scaleTimeline.sample(time, scale);
+                int scaleOffset = jointFrame * SCALE_STRIDE;
+                scales[scaleOffset] = scale.x;
+                scales[scaleOffset + 1] = scale.y;
+                scales[scaleOffset + 2] = scale.z;
+
+                visibilities[jointFrame] = visibilityTimeline.sample(time);
+            }
+        }
+        for (int customAttribute = 0; customAttribute < customAttributeCount; customAttribute++) {
+            FloatTimeline customAttributeTimeline = sequence.customAttributeTimelines().get(jointSkeleton.getCustomAttributeName(customAttribute));
+            float defaultValue = jointSkeleton.getCustomAttributeDefaultValue(customAttribute);
+            for (int frame = 0; frame < frameCount; frame++) {
+                customAttributeValues[customAttribute * frameCount + frame] = customAttributeTimeline != null
+                        ? customAttributeTimeline.sample(getFrameTime(frame, frameCount, frameDuration, lengthSeconds))
+                        : defaultValue;
+            }
+        }
+
+        // The first frame of every track makes up the reference pose, which is all that is kept for constant tracks.
+        LocalSpacePose referencePose = LocalSpacePose.of(jointSkeleton);
+        int[] animatedJoints = new int[jointCount];
+        int animatedJointCount = 0;
+        for (int joint = 0; joint < jointCount; joint++) {
+            int firstFrame = joint * frameCount;
+            referencePose.setJointTranslation(joint, translations[firstFrame * TRANSLATION_STRIDE], translations[firstFrame * TRANSLATION_STRIDE + 1], translations[firstFrame * TRANSLATION_STRIDE + 2]);
+            referencePose.setJointRotation(joint, rotations[firstFrame * ROTATION_STRIDE], rotations[firstFrame * ROTATION_STRIDE + 1], rotations[firstFrame * ROTATION_STRIDE + 2], rotations[firstFrame * ROTATION_STRIDE + 3]);
+            referencePose.setJointScale(joint, scales[firstFrame * SCALE_STRIDE], scales[firstFrame * SCALE_STRIDE + 1], scales[firstFrame * SCALE_STRIDE + 2]);
+            referencePose.setJointVisibility(joint, visibilities[firstFrame]);
+            boolean isConstant = isConstant(translations, firstFrame, frameCount, TRANSLATION_STRIDE)
+                    && isConstant(rotations, firstFrame, frameCount, ROTATION_STRIDE)
+                    && isConstant(scales, firstFrame, frameCount, SCALE_STRIDE)
+                    && isConstant(visibilities, firstFrame, frameCount);
+            if (!isConstant) {
+                animatedJoints[animatedJointCount++] = joint;
+            }
+        }
+        int[] animatedCustomAttributes = new int[customAttributeCount];
+        int animatedCustomAttributeCount = 0;
+        for (int customAttribute = 0; customAttribute < customAttributeCount; customAttribute++) {
+            int firstFrame = customAttribute * frameCount;
+            referencePose.setCustomAttributeValue(customAttribute, customAttributeValues[firstFrame]);
+            if (!isConstant(customAttributeValues, firstFrame, frameCount, 1)) {
+                animatedCustomAttributes[animatedCustomAttributeCount++] = customAttribute;
+            }
+        }
+
+        // Store the animated tracks frame by frame, so that sampling a frame reads one contiguous block per array.
+        float[] animatedTranslations = new float[frameCount * animatedJointCount * TRANSLATION_STRIDE];
+        float[] animatedRotations = new float[frameCount * animatedJointCount * ROTATION_STRIDE];
+        float[] animatedScales = new float[frameCount * animatedJointCount * SCALE_STRIDE];
+        boolean[] animatedVisibilities = new boolean[frameCount * animatedJointCount];
+        float[] animatedCustomAttributeValues = new float[frameCount * animatedCustomAttributeCount];
+        for (int frame = 0; frame < frameCount; frame++) {
+            for (int animatedJoint = 0; animatedJoint < animatedJointCount; animatedJoint++) {
+                int source = animatedJoints[animatedJoint] * frameCount + frame;
+                int destination = frame * animatedJointCount + animatedJoint;
+                System.arraycopy(translations, source * TRANSLATION_STRIDE, animatedTranslations, destination * TRANSLATION_STRIDE, TRANSLATION_STRIDE);
+                System.arraycopy(rotations, source * ROTATION_STRIDE, animatedRotations, destination * ROTATION_STRIDE, ROTATION_STRIDE);
+                System.arraycopy(scales, source * SCALE_STRIDE, animatedScales, destination * SCALE_STRIDE, SCALE_STRIDE);
+                animatedVisibilities[destination] = visibilities[source];
+            }
+            for (int animatedCustomAttribute = 0; animatedCustomAttribute < animatedCustomAttributeCount; animatedCustomAttribute++) {
+                animatedCustomAttributeValues[frame * animatedCustomAttributeCount + animatedCustomAttribute] = customAttributeValues[animatedCustomAttributes[animatedCustomAttribute] * frameCount + frame];
+            }
+        }
+
+        return new ResampledSequence(
+                jointSkeleton,
+                sampleRate,
+                lengthSeconds,
+                frameCount,
+                referencePose,
+                Arrays.copyOf(animatedJoints, animatedJointCount),
+                Arrays.copyOf(animatedCustomAttributes, animatedCustomAttributeCount),
+                animatedTranslations,
+                animatedRotations,
+                animatedScales,
+                animatedVisibilities,
+                animatedCustomAttributeValues
+        );
+    }
+
+    private static float getFrameTime(int frame, int frameCount, float frameDuration, float lengthSeconds) {
+        return frame == frameCount - 1 ? lengthSeconds : frame * frameDuration;
+    }
+
+    private static boolean isConstant(float[] values, int firstFrame, int frameCount, int stride) {
+        int firstOffset = firstFrame * stride;
+        for (int frame = 1; frame < frameCount; frame++) {
+            int offset = (firstFrame + frame) * stride;
+            if (!Arrays.equals(values, firstOffset, firstOffset + stride, values, offset, offset + stride)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isConstant(boolean[] values, int firstFrame, int frameCount) {
+        for (int frame = 1; frame < frameCount; frame++) {
+            if (values[firstFrame + frame] != values[firstFrame]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Retrieves the joint skeleton that the resampled data is laid out for.
+     * @return                      Joint skeleton
+     */
+    public JointSkeleton getJointSkeleton() {
+        return this.jointSkeleton;
+    }
+
+    public float getSampleRate() {
+        return this.sampleRate;
+    }
+
+    public int getFrameCount() {
+        return this.frameCount;
+    }
+
+    /**
+     * Retrieves the number of joints that change over the course of the sequence. Every other joint is constant.
+     */
+    public int getAnimatedJointCount() {
+        return this.animatedJoints.length;
+    }
+
+    /**
+     * Samples a point in time onto an existing pose. Every joint and custom attribute of the pose is overwritten.
+     * @param timeSeconds           Point of time in the sequence, in seconds.
+     * @param looping               Whether the joint tracks should be looped or not. Custom attributes are never looped,
+     *                              matching the timeline-based sampling.
+     * @param pose                  Pose to sample onto, using the same joint skeleton as this resampled sequence.
+     */
+    public void sample(float timeSeconds, boolean looping, LocalSpacePose pose) {
+        pose.copyFrom(this.referencePose);
+
+        int animatedJointCount = this.animatedJoints.length;
+        float jointTime = looping && this.lengthSeconds > 0 ? timeSeconds % this.lengthSeconds : timeSeconds;
+        float jointFramePosition = this.getFramePosition(jointTime);
+        int jointFrame = this.getFrame(jointFramePosition);
+        float jointAlpha = jointFramePosition - jointFrame;
+        int nextJointFrame = Math.min(jointFrame + 1, this.frameCount - 1);
+
+        int currentJointFrameOffset = jointFrame * animatedJointCount;
+        int nextJointFrameOffset = nextJointFrame * animatedJointCount;
+        for (int animatedJoint = 0; animatedJoint < animatedJointCount; animatedJoint++) {
+            int joint = this.animatedJoints[animatedJoint];
+            int current = currentJointFrameOffset + animatedJoint;
+            int next = nextJointFrameOffset + animatedJoint;
+            int a = current * TRANSLATION_STRIDE;
+            int b = next * TRANSLATION_STRIDE;
+            pose.setJointTranslation(joint,
+                    lerp(this.translations[a], this.translations[b], jointAlpha),
+                    lerp(this.translations[a + 1], this.translations[b + 1], jointAlpha),
+                    lerp(this.translations[a + 2], this.translations[b + 2], jointAlpha)
+            );
+
+            a = current * ROTATION_STRIDE;
+            b = next * ROTATION_STRIDE;
+            float ax = this.rotations[a];
+            float ay = this.rotations[a + 1];
+            float az = this.rotations[a + 2];
+            float aw = this.rotations[a + 3];
+            float bx = this.rotations[b];
+            float by = this.rotations[b + 1];
+            float bz = this.rotations[b + 2];
+            float bw = this.rotations[b + 3];
+            // Blend along the shortest arc between the two frames.
+            float bAlpha = ax * bx + ay * by + az * bz + aw * bw < 0 ? -jointAlpha : jointAlpha;
+            float aAlpha = 1 - jointAlpha;
+            float x = ax * aAlpha + bx * bAlpha;
+            float y = ay * aAlpha + by * bAlpha;
+            float z = az * aAlpha + bz * bAlpha;
+            float w = aw * aAlpha + bw * bAlpha;
+            float inverseLength = (float) (1 / Math.sqrt(x * x + y * y + z * z + w * w));
+            pose.setJointRotation(joint, x * inverseLength, y * inverseLength, z * inverseLength, w * inverseLength);
+
+            a = current * SCALE_STRIDE;
+            b = next * SCALE_STRIDE;
+            pose.setJointScale(joint,
+                    lerp(this.scales[a], this.scales[b], jointAlpha),
+                    lerp(this.scales[a + 1], this.scales[b + 1], jointAlpha),
+                    lerp(this.scales[a + 2], this.scales[b + 2], jointAlpha)
+            );
+
+            pose.setJointVisibility(joint, this.visibilities[jointAlpha > 0 ? next : current]);
+        }
+
+        int animatedCustomAttributeCount = this.animatedCustomAttributes.length;
+        float customAttributeFramePosition = this.getFramePosition(timeSeconds);
+        int customAttributeFrame = this.getFrame(customAttributeFramePosition);
+        float customAttributeAlpha = customAttributeFramePosition - customAttributeFrame;
+        int currentCustomAttributeFrameOffset = customAttributeFrame * animatedCustomAttributeCount;
+        int nextCustomAttributeFrameOffset = Math.min(customAttributeFrame + 1, this.frameCount - 1) * animatedCustomAttributeCount;
+        for (int animatedCustomAttribute = 0; animatedCustomAttribute < animatedCustomAttributeCount; animatedCustomAttribute++) {
+            pose.setCustomAttributeValue(this.animatedCustomAttributes[animatedCustomAttribute], lerp(
+                    this.customAttributeValues[currentCustomAttributeFrameOffset + animatedCustomAttribute],
+                    this.customAttributeValues[nextCustomAttributeFrameOffset + animatedCustomAttribute],
+                    customAttributeAlpha
+            ));
+        }
+    }
+
+    /**
+     * Converts a time in seconds to a fractional frame, clamped to the range of the sequence.
+     */
+    private float getFramePosition(float timeSeconds) {
+        if (this.frameDuration == 0 || timeSeconds <= 0) {
+            return 0;
+        }
+        return Math.min(timeSeconds / this.frameDuration, this.frameCount - 1);
+    }
+
+    private int getFrame(float framePosition) {
+        return Math.min((int) framePosition, this.frameCount - 1);
+    }
+
+    private static float lerp(float a, float b, float alpha) {
+        return a + (b - a) * alpha;
+    }
+}
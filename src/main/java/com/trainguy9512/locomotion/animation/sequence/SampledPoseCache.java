@@ -0,0 +1,158 @@
+package com.trainguy9512.locomotion.animation.sequence;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.trainguy9512.locomotion.LocomotionMain;
+import com.trainguy9512.locomotion.animation.joint.skeleton.JointSkeleton;
+import com.trainguy9512.locomotion.animation.pose.LocalSpacePose;
+import com.trainguy9512.locomotion.config.LocomotionConfig;
+import com.trainguy9512.locomotion.util.TimeSpan;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Bounded cache of sampled poses shared between every pose function, so that the same sequence sampled at the same
+ * time by many entities, or by several functions within one graph, is only sampled once.
+ * <p>
+ * Sample times are quantized to a fixed rate, and looping times are wrapped around the sequence length first, so that
+ * looping sequences played by different entities land on the same entries. Entries are keyed by the sequence and joint
+ * skeleton instances, so the cache is cleared whenever resources are reloaded to release sequences that were replaced.
+ * <p>
+ * Quantizing sample times changes the sampled poses, so sharing samples is opt-in, and sequences are sampled at their
+ * exact time unless {@link LocomotionConfig.Data.AnimationSequences#cacheSampledPoses} is enabled.
+ * <p>
+ * Cached poses are never handed out. Reads copy the cached pose onto the caller's pose, and writes store a copy.
+ */
+public class SampledPoseCache {
+
+    /**
+     * Key reused by each thread to look up entries, so that cache hits do not allocate.
+     */
+    private static final ThreadLocal<Key> LOOKUP_KEY = ThreadLocal.withInitial(Key::new);
+
+    @Nullable
+    private static volatile Cache<Key, LocalSpacePose> sampledPoses = null;
+    private static volatile int sampledPosesMaximumSize = -1;
+
+    /**
+     * Samples an animation sequence onto a pose, such as {@link AnimationSequence#samplePose(JointSkeleton, TimeSpan, boolean, LocalSpacePose)}.
+     */
+    @FunctionalInterface
+    public interface Sampler {
+        LocalSpacePose samplePose(AnimationSequence sequence, JointSkeleton jointSkeleton, TimeSpan time, boolean looping, LocalSpacePose pose);
+    }
+
+    /**
+     * Samples a point in time within an animation sequence onto an existing pose, copying it from the cache if the
+     * sequence has already been sampled at the same quantized time.
+     * @param sequence              Animation sequence to sample
+     * @param jointSkeleton         Template joint skeleton
+     * @param time                  Point of time in the animation to get.
+     * @param looping               Whether the animation should be looped or not.
+     * @param pose                  Pose to save the sampled pose onto. Every joint and custom attribute is overwritten.
+     * @param sampler               Samples the sequence when it is not cached, at the quantized time.
+     * @return                      Provided pose
+     */
+    public static LocalSpacePose samplePose(AnimationSequence sequence, JointSkeleton jointSkeleton, TimeSpan time, boolean looping, LocalSpacePose pose, Sampler sampler) {
+        LocomotionConfig.Data.AnimationSequences sequenceConfig = LocomotionMain.CONFIG.data().animationSequences;
+        if (!sequenceConfig.cacheSampledPoses) {
+            return sampler.samplePose(sequence, jointSkeleton, time, looping, pose);
+        }
+        float timeSeconds = time.inSeconds();
+        float lengthSeconds = sequence.length().inSeconds();
+        boolean wrapped = looping && timeSeconds >= 0 && lengthSeconds > 0;
+        // Custom attributes are sampled without looping, so times past the first loop are kept apart from the first loop.
+        boolean pastFirstLoop = wrapped && timeSeconds >= lengthSeconds;
+        int frame = Math.round((wrapped ? timeSeconds % lengthSeconds : timeSeconds) * sequenceConfig.sampledPoseCacheSampleRate);
+
+        Cache<Key, LocalSpacePose> cache = getCache(sequenceConfig.sampledPoseCacheSize);
+        Key key = LOOKUP_KEY.get().set(sequence, jointSkeleton, frame, looping, pastFirstLoop);
+        LocalSpacePose cachedPose = cache.getIfPresent(key);
+        key.clear();
+        if (cachedPose != null) {
+            return pose.copyFrom(cachedPose);
+        }
+        float frameSeconds = frame / sequenceConfig.sampledPoseCacheSampleRate + (pastFirstLoop ? lengthSeconds : 0);
+        sampler.samplePose(sequence, jointSkeleton, TimeSpan.ofSeconds(frameSeconds), looping, pose);
+        cache.put(new Key().set(sequence, jointSkeleton, frame, looping, pastFirstLoop), LocalSpacePose.of(jointSkeleton).copyFrom(pose));
+        return pose;
+    }
+
+    /**
+     * Removes every cached pose. Called when resources are reloaded, so that replaced sequences are not kept alive.
+     */
+    public static void invalidateAll() {
+        Cache<Key, LocalSpacePose> cache = sampledPoses;
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    /**
+     * Returns the cache, building it on first use and rebuilding it if the configured maximum size has changed.
+     */
+    private static Cache<Key, LocalSpacePose> getCache(int maximumSize) {
+        Cache<Key, LocalSpacePose> cache = sampledPoses;
+        if (cache != null && sampledPosesMaximumSize == maximumSize) {
+            return cache;
+        }
+        synchronized (SampledPoseCache.class) {
+            if (sampledPoses == null || sampledPosesMaximumSize != maximumSize) {
+                sampledPoses = CacheBuilder.newBuilder()
+                        .maximumSize(maximumSize)
+                        .build();
+                sampledPosesMaximumSize = maximumSize;
+            }
+            return sampledPoses;
+        }
+    }
+
+    /**
+     * Cache key, comparing the sequence and joint skeleton by identity. Keys are mutable so that lookups can reuse one
+     * key per thread, but keys stored in the cache are never modified.
+     */
+    private static final class Key {
+        private AnimationSequence sequence;
+        private JointSkeleton jointSkeleton;
+        private int frame;
+        private boolean looping;
+        private boolean pastFirstLoop;
+        private int hashCode;
+
+        private Key set(AnimationSequence sequence, JointSkeleton jointSkeleton, int frame, boolean looping, boolean pastFirstLoop) {
+            this.sequence = sequence;
+            this.jointSkeleton = jointSkeleton;
+            this.frame = frame;
+            this.looping = looping;
+            this.pastFirstLoop = pastFirstLoop;
+            int hashCode = System.identityHashCode(sequence);
+            hashCode = 31 * hashCode + System.identityHashCode(jointSkeleton);
+            hashCode = 31 * hashCode + frame;
+            hashCode = 31 * hashCode + (looping ? 1 : 0);
+            this.hashCode = 31 * hashCode + (pastFirstLoop ? 1 : 0);
+            return this;
+        }
+
+        /**
+         * Releases the sequence and joint skeleton of a lookup key, so that they are not kept alive between lookups.
+         */
+        private void clear() {
+            this.sequence = null;
+            this.jointSkeleton = null;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            return object instanceof Key other
+                    && this.sequence == other.sequence
+                    && this.jointSkeleton == other.jointSkeleton
+                    && this.frame == other.frame
+                    && this.looping == other.looping
+                    && this.pastFirstLoop == other.pastFirstLoop;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+    }
+}
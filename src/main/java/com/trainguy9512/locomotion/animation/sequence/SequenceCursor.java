@@ -0,0 +1,194 @@
+package com.trainguy9512.locomotion.animation.sequence;
+
+import com.trainguy9512.locomotion.animation.joint.skeleton.JointSkeleton;
+import com.trainguy9512.locomotion.animation.pose.LocalSpacePose;
+import com.trainguy9512.locomotion.util.BoolTimeline;
+import com.trainguy9512.locomotion.util.FloatTimeline;
+import com.trainguy9512.locomotion.util.QuatTimeline;
+import com.trainguy9512.locomotion.util.TimeSpan;
+import com.trainguy9512.locomotion.util.Vec3Timeline;
+import net.minecraft.resources.ResourceLocation;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+
+import java.util.Arrays;
+
+/**
+ * Stateful sampler for an animation sequence that is played back over time.
+ * <p>
+ * The cursor resolves the timelines of every joint once, and remembers the keyframe that each track was last sampled
+ * at. Since sequence players move forward in small steps, the next sample usually lands in the same or the following
+ * keyframe, which is found by walking forward instead of searching the timeline. Wrapping around the end of a looping
+ * sequence restarts the walk from the first keyframe, and any other backwards jump, such as a reset, falls back to a
+ * binary search.
+ * <p>
+ * Sequences that were resampled when baked are sampled directly from the resampled data, which needs no cursor state,
+ * so the cursor only speeds up sequences that keep their keyframes, which is the default.
+ * A cursor is meant to be owned by a single playing sequence, such as a sequence player function or a montage instance.
+ * The sequence is accessed through a {@link SequenceHandle}, which the owner can share to avoid looking it up separately.
+ */
+public class SequenceCursor {
+
+    private final SequenceHandle sequenceHandle;
+
+    private AnimationSequence boundSequence;
+    private JointSkeleton boundJointSkeleton;
+    private Vec3Timeline[] translationTimelines;
+    private QuatTimeline[] rotationTimelines;
+    private Vec3Timeline[] scaleTimelines;
+    private BoolTimeline[] visibilityTimelines;
+    private FloatTimeline[] customAttributeTimelines;
+
+    private int[] translationKeyframes;
+    private int[] rotationKeyframes;
+    private int[] scaleKeyframes;
+    private int[] visibilityKeyframes;
+    private int[] customAttributeKeyframes;
+    private float previousSampleTime;
+
+    private final Vector3f translation;
+    private final Quaternionf rotation;
+    private final Vector3f scale;
+
+    private SequenceCursor(SequenceHandle sequenceHandle) {
+        this.sequenceHandle = sequenceHandle;
+        this.boundSequence = null;
+        this.boundJointSkeleton = null;
+        this.previousSampleTime = 0;
+        this.translation = new Vector3f();
+        this.rotation = new Quaternionf();
+        this.scale = new Vector3f();
+    }
+
+    public static SequenceCursor of(ResourceLocation sequenceLocation) {
+        return of(SequenceHandle.of(sequenceLocation));
+    }
+
+    public static SequenceCursor of(SequenceHandle sequenceHandle) {
+        return new SequenceCursor(sequenceHandle);
+    }
+
+    public ResourceLocation getSequenceLocation() {
+        return this.sequenceHandle.getSequenceLocation();
+    }
+
+    public SequenceHandle getSequenceHandle() {
+        return this.sequenceHandle;
+    }
+
+    /**
+     * Forgets the keyframes that every track was last sampled at, so that the next sample walks from the start.
+     */
+    public void reset() {
+        if (this.boundSequence != null) {
+            this.resetJointKeyframes();
+            Arrays.fill(this.customAttributeKeyframes, -1);
+        }
+        this.previousSampleTime = 0;
+    }
+
+    private void resetJointKeyframes() {
+        Arrays.fill(this.translationKeyframes, -1);
+        Arrays.fill(this.rotationKeyframes, -1);
+        Arrays.fill(this.scaleKeyframes, -1);
+        Arrays.fill(this.visibilityKeyframes, -1);
+    }
+
+    /**
+     * Samples a point in time within the cursor's animation sequence onto an existing pose.
+     * @param jointSkeleton         Template joint skeleton
+     * @param time                  Point of time in the animation to get.
+     * @param looping               Whether the animation should be looped or not.
+     * @param pose                  Pose to save the sampled pose onto. Every joint and custom attribute is overwritten.
+     * @return                      Provided pose
+     */
+    public LocalSpacePose samplePose(JointSkeleton jointSkeleton, TimeSpan time, boolean looping, LocalSpacePose pose) {
+        return this.samplePose(this.sequenceHandle.get(), jointSkeleton, time, looping, pose);
+    }
+
+    /**
+     * Samples a point in time within a variant of the cursor's animation sequence onto an existing pose, such as its
+     * {@link AnimationSequence#getAdditive(TimeSpan) additive variant}. The cursor should always be given the same variant.
+     * @param sequence              Variant of the cursor's animation sequence with the same keyframe timing
+     * @param jointSkeleton         Template joint skeleton
+     * @param time                  Point of time in the animation to get.
+     * @param looping               Whether the animation should be looped or not.
+     * @param pose                  Pose to save the sampled pose onto. Every joint and custom attribute is overwritten.
+     * @return                      Provided pose
+     */
+    public LocalSpacePose samplePose(AnimationSequence sequence, JointSkeleton jointSkeleton, TimeSpan time, boolean looping, LocalSpacePose pose) {
+        float timeSeconds = time.inSeconds();
+        ResampledSequence resampledSequence = sequence.resampledSequence();
+        if (resampledSequence != null && resampledSequence.getJointSkeleton() == jointSkeleton) {
+            resampledSequence.sample(timeSeconds, looping, pose);
+            return pose;
+        }
+        if (sequence != this.boundSequence || jointSkeleton != this.boundJointSkeleton) {
+            this.bind(sequence, jointSkeleton);
+        }
+
+        float sampleTime = looping ? timeSeconds % sequence.length().inSeconds() : timeSeconds;
+        if (looping && sampleTime < this.previousSampleTime) {
+            this.resetJointKeyframes();
+        }
+        this.previousSampleTime = sampleTime;
+
+        for (int joint = 0; joint < this.translationTimelines.length; joint++) {
+            Vec3Timeline translationTimeline = this.translationTimelines[joint];
+            this.translationKeyframes[joint] = translationTimeline.advanceKeyframeIndex(this.translationKeyframes[joint], sampleTime);
+            pose.setJointTranslation(joint, translationTimeline.sample(this.translationKeyframes[joint], sampleTime, this.translation));
+
+            QuatTimeline rotationTimeline = this.rotationTimelines[joint];
+            this.rotationKeyframes[joint] = rotationTimeline.advanceKeyframeIndex(this.rotationKeyframes[joint], sampleTime);
+            pose.setJointRotation(joint, rotationTimeline.sample(this.rotationKeyframes[joint], sampleTime, this.rotation));
+
+            Vec3Timeline scaleTimeline = this.scaleTimelines[joint];
+            this.scaleKeyframes[joint] = scaleTimeline.advanceKeyframeIndex(this.scaleKeyframes[joint], sampleTime);
+            pose.setJointScale(joint, scaleTimeline.sample(this.scaleKeyframes[joint], sampleTime, this.scale));
+
+            BoolTimeline visibilityTimeline = this.visibilityTimelines[joint];
+            this.visibilityKeyframes[joint] = visibilityTimeline.advanceKeyframeIndex(this.visibilityKeyframes[joint], sampleTime);
+            pose.setJointVisibility(joint, visibilityTimeline.sample(this.visibilityKeyframes[joint], sampleTime));
+        }
+
+        // Custom attributes are sampled without looping, matching AnimationSequence#samplePose.
+        pose.resetCustomAttributesToDefault();
+        for (int customAttribute = 0; customAttribute < this.customAttributeTimelines.length; customAttribute++) {
+            FloatTimeline customAttributeTimeline = this.customAttributeTimelines[customAttribute];
+            if (customAttributeTimeline != null) {
+                this.customAttributeKeyframes[customAttribute] = customAttributeTimeline.advanceKeyframeIndex(this.customAttributeKeyframes[customAttribute], timeSeconds);
+                pose.setCustomAttributeValue(customAttribute, customAttributeTimeline.sample(this.customAttributeKeyframes[customAttribute], timeSeconds));
+            }
+        }
+        return pose;
+    }
+
+    private void bind(AnimationSequence sequence, JointSkeleton jointSkeleton) {
+        int jointCount = jointSkeleton.getJointCount();
+        this.translationTimelines = new Vec3Timeline[jointCount];
+        this.rotationTimelines = new QuatTimeline[jointCount];
+        this.scaleTimelines = new Vec3Timeline[jointCount];
+        this.visibilityTimelines = new BoolTimeline[jointCount];
+        for (int joint = 0; joint < jointCount; joint++) {
+            String jointName = jointSkeleton.getJointName(joint);
+            this.translationTimelines[joint] = sequence.translationTimelines().get(jointName);
+            this.rotationTimelines[joint] = sequence.rotationTimelines().get(jointName);
+            this.scaleTimelines[joint] = sequence.scaleTimelines().get(jointName);
+            this.visibilityTimelines[joint] = sequence.visibilityTimelines().get(jointName);
+        }
+        int customAttributeCount = jointSkeleton.getCustomAttributeCount();
+        this.customAttributeTimelines = new FloatTimeline[customAttributeCount];
+        for (int customAttribute = 0; customAttribute < customAttributeCount; customAttribute++) {
+            this.customAttributeTimelines[customAttribute] = sequence.customAttributeTimelines().get(jointSkeleton.getCustomAttributeName(customAttribute));
+        }
+
+        this.translationKeyframes = new int[jointCount];
+        this.rotationKeyframes = new int[jointCount];
+        this.scaleKeyframes = new int[jointCount];
+        this.visibilityKeyframes = new int[jointCount];
+        this.customAttributeKeyframes = new int[customAttributeCount];
+        this.boundSequence = sequence;
+        this.boundJointSkeleton = jointSkeleton;
+        this.reset();
+    }
+}
@@ -0,0 +1,61 @@
+package com.trainguy9512.locomotion.animation.sequence;
+
+import com.trainguy9512.locomotion.resource.LocomotionResources;
+import net.minecraft.resources.ResourceLocation;
+
+/**
+ * Reference to a loaded animation sequence that is looked up once, instead of on every access.
+ * <p>
+ * The handle keeps the baked sequence it resolved to along with the {@link LocomotionResources#getGeneration() resource
+ * generation} it was resolved in. As long as no reload has happened since, accessing the sequence is a single comparison.
+ * After a reload, the next access looks the sequence up again, so a handle never holds onto a sequence that was unloaded.
+ * <p>
+ * A handle is meant to be owned by a single pose function or montage instance, and is not safe to share between threads.
+ */
+public class SequenceHandle {
+
+    private static final int UNRESOLVED_GENERATION = -1;
+
+    private final ResourceLocation sequenceLocation;
+
+    private AnimationSequence resolvedSequence;
+    private int resolvedGeneration;
+
+    private SequenceHandle(ResourceLocation sequenceLocation) {
+        this.sequenceLocation = sequenceLocation;
+        this.resolvedSequence = null;
+        this.resolvedGeneration = UNRESOLVED_GENERATION;
+    }
+
+    public static SequenceHandle of(ResourceLocation sequenceLocation) {
+        return new SequenceHandle(sequenceLocation);
+    }
+
+    public ResourceLocation getSequenceLocation() {
+        return this.sequenceLocation;
+    }
+
+    /**
+     * Looks the sequence up now, rather than on the first access.
+     * @return                      This handle
+     * @throws IllegalArgumentException If the sequence is not loaded.
+     */
+    public SequenceHandle resolve() {
+        // The generation is read before the lookup, so that a reload in between only causes another lookup next access.
+        int generation = LocomotionResources.getGeneration();
+        this.resolvedSequence = LocomotionResources.getOrThrowAnimationSequence(this.sequenceLocation);
+        this.resolvedGeneration = generation;
+        return this;
+    }
+
+    /**
+     * Returns the loaded sequence, looking it up again if resources have been reloaded since it was last resolved.
+     * @throws IllegalArgumentException If the sequence is not loaded.
+     */
+    public AnimationSequence get() {
+        if (this.resolvedGeneration != LocomotionResources.getGeneration()) {
+            this.resolve();
+        }
+        return this.resolvedSequence;
+    }
+}
@@ -0,0 +1,148 @@
+package com.trainguy9512.locomotion.animation.sequence;
+
+import com.trainguy9512.locomotion.util.TimeSpan;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Time markers of an animation sequence, compiled into a form that can be queried without allocating.
+ * <p>
+ * Every marker time across all identifiers is stored in one array sorted by time, alongside the id of the identifier
+ * it belongs to. Identifiers are numbered by their position in alphabetical order. Range queries find both ends of the
+ * range with a binary search, and write the ids of the markers within it onto a reusable {@link BitSet}, which also
+ * takes care of identifiers with several times in the same range.
+ */
+public class TimeMarkerIndex {
+
+    private final String[] identifiers;
+    private final float[] times;
+    private final int[] identifierIds;
+
+    private TimeMarkerIndex(String[] identifiers, float[] times, int[] identifierIds) {
+        this.identifiers = identifiers;
+        this.times = times;
+        this.identifierIds = identifierIds;
+    }
+
+    /**
+     * Compiles the time markers of an animation sequence.
+     * @param timeMarkers           Times of every time marker, by identifier
+     */
+    public static TimeMarkerIndex of(Map<String, List<TimeSpan>> timeMarkers) {
+        String[] identifiers = timeMarkers.keySet().toArray(String[]::new);
+        Arrays.sort(identifiers);
+        int markerCount = 0;
+        for (List<TimeSpan> markerTimes : timeMarkers.values()) {
+            markerCount += markerTimes.size();
+        }
+
+        // Times and ids are packed into longs for sorting, with the time's bits ordered the same way as the times.
+        long[] markers = new long[markerCount];
+        int marker = 0;
+        for (int identifierId = 0; identifierId < identifiers.length; identifierId++) {
+            for (TimeSpan time : timeMarkers.get(identifiers[identifierId])) {
+                markers[marker++] = ((long) getSortableBits(time.inSeconds()) << 32) | identifierId;
+            }
+        }
+        Arrays.sort(markers);
+
+        float[] times = new float[markerCount];
+        int[] identifierIds = new int[markerCount];
+        for (marker = 0; marker < markerCount; marker++) {
+            times[marker] = getTimeFromSortableBits((int) (markers[marker] >>> 32));
+            identifierIds[marker] = (int) markers[marker];
+        }
+        return new TimeMarkerIndex(identifiers, times, identifierIds);
+    }
+
+    /**
+     * Maps a float onto an int whose signed ordering matches the ordering of the floats.
+     */
+    private static int getSortableBits(float value) {
+        int bits = Float.floatToIntBits(value);
+        return bits < 0 ? bits ^ Integer.MAX_VALUE : bits;
+    }
+
+    private static float getTimeFromSortableBits(int sortableBits) {
+        return Float.intBitsToFloat(sortableBits < 0 ? sortableBits ^ Integer.MAX_VALUE : sortableBits);
+    }
+
+    public int getIdentifierCount() {
+        return this.identifiers.length;
+    }
+
+    public String getIdentifier(int identifierId) {
+        return this.identifiers[identifierId];
+    }
+
+    /**
+     * Returns the id of a time marker identifier, or -1 if the sequence has no markers with the identifier.
+     */
+    public int getIdentifierId(String identifier) {
+        int identifierId = Arrays.binarySearch(this.identifiers, identifier);
+        return identifierId >= 0 ? identifierId : -1;
+    }
+
+    public boolean isEmpty() {
+        return this.times.length == 0;
+    }
+
+    /**
+     * Finds the identifiers of the markers that are passed when moving from the start time to the end time.
+     * <p>
+     * Markers at the start time are left out and markers at the end time are included, so that a marker is only found
+     * once when querying consecutive ranges. When looping, times are wrapped by the sequence length, and a range that
+     * ends before it starts wraps around the end of the sequence.
+     * @param startSeconds          Start time in seconds
+     * @param endSeconds            End time in seconds
+     * @param looped                Whether the time range should be looped based on the sequence length.
+     * @param lengthSeconds         Sequence length in seconds
+     * @param destination           Set to write the id of every found identifier onto, after clearing it.
+     * @return                      Provided set
+     */
+    public BitSet getMarkersInRange(float startSeconds, float endSeconds, boolean looped, float lengthSeconds, BitSet destination) {
+        destination.clear();
+        if (this.isEmpty()) {
+            return destination;
+        }
+        if (looped) {
+            startSeconds %= lengthSeconds;
+            endSeconds %= lengthSeconds;
+        }
+        int startIndex = this.findFirstMarkerAfter(startSeconds);
+        int endIndex = this.findFirstMarkerAfter(endSeconds);
+        if (endSeconds < startSeconds) {
+            this.addMarkers(startIndex, this.times.length, destination);
+            this.addMarkers(0, endIndex, destination);
+        } else {
+            this.addMarkers(startIndex, endIndex, destination);
+        }
+        return destination;
+    }
+
+    private void addMarkers(int fromIndex, int toIndex, BitSet destination) {
+        for (int marker = fromIndex; marker < toIndex; marker++) {
+            destination.set(this.identifierIds[marker]);
+        }
+    }
+
+    /**
+     * Returns the index of the first marker with a time greater than the provided time.
+     */
+    private int findFirstMarkerAfter(float time) {
+        int low = 0;
+        int high = this.times.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (this.times[middle] <= time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
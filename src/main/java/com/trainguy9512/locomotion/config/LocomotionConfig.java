@@ -80,6 +80,30 @@ public class LocomotionConfig {
             public float cameraRotationDampingFactor = 0.65f;
             public float miningAnimationSpeedMultiplier = 1f;
         }
+
+        public final AnimationSequences animationSequences = new AnimationSequences();
+
+        public static class AnimationSequences {
+            public boolean resampleOnLoad = false;
+            public float resampleRate = 60f;
+            public boolean compressOnLoad = false;
+            public float compressionTranslationTolerance = 0.01f;
+            public float compressionRotationTolerance = 0.002f;
+            public float compressionScaleTolerance = 0.001f;
+            public float compressionCustomAttributeTolerance = 0.001f;
+            public boolean cacheBakedSequences = true;
+            public boolean precomputeAdditiveSequences = false;
+            public boolean cacheSampledPoses = false;
+            public int sampledPoseCacheSize = 1024;
+            public float sampledPoseCacheSampleRate = 120f;
+        }
+
+        public final PoseEvaluation poseEvaluation = new PoseEvaluation();
+
+        public static class PoseEvaluation {
+            public boolean enableParallelEvaluation = false;
+            public int parallelEvaluationCostThreshold = 4;
+        }
     }
 
     public Function<Screen, Screen> getConfigScreen(Predicate<String> ifModLoaded) {
@@ -1,28 +1,49 @@
 package com.trainguy9512.locomotion.resource;
 
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
-import com.google.gson.JsonElement;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 import com.google.gson.JsonParseException;
 import com.trainguy9512.locomotion.LocomotionMain;
+import com.trainguy9512.locomotion.animation.animator.JointAnimatorDispatcher;
 import com.trainguy9512.locomotion.animation.joint.skeleton.JointSkeleton;
 import com.trainguy9512.locomotion.animation.sequence.AnimationSequence;
+import com.trainguy9512.locomotion.animation.sequence.SampledPoseCache;
+import com.trainguy9512.locomotion.config.LocomotionConfig;
+import com.trainguy9512.locomotion.resource.binary.AnimationSequenceBakeCache;
+import com.trainguy9512.locomotion.resource.binary.BinaryAnimationSequenceFormat;
 import com.trainguy9512.locomotion.resource.json.GsonConfiguration;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.packs.resources.PreparableReloadListener;
 import net.minecraft.server.packs.resources.Resource;
 import net.minecraft.server.packs.resources.ResourceManager;
-import net.minecraft.util.GsonHelper;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
 
-import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.lang.reflect.Type;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
-import java.util.function.Consumer;
+import java.util.function.BiFunction;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 public class LocomotionResources {
 
@@ -31,98 +52,460 @@ public class LocomotionResources {
     public static final ResourceLocation RELOADER_IDENTIFIER = ResourceLocation.fromNamespaceAndPath(LocomotionMain.MOD_ID, "locomotion_asset_loader");
     private static final String JOINT_SKELETON_PATH = "skeletons";
     private static final String ANIMATION_SEQUENCE_PATH = "sequences";
-    private static final Map<ResourceLocation, AnimationSequence> ANIMATION_SEQUENCES;
-    private static final Map<ResourceLocation, JointSkeleton> JOINT_SKELETONS;
-
-    static {
-        JOINT_SKELETONS = Maps.newHashMap();
-        ANIMATION_SEQUENCES = Maps.newHashMap();
-    }
+    private static final Path BAKE_CACHE_PATH = Path.of("cache").resolve(LocomotionMain.MOD_ID).resolve("sequences");
+    /**
+     * Currently loaded resources. Reloads never modify a snapshot, and instead publish a new one by replacing this
+     * reference, so lookups from any thread always see either the previous or the next set of resources as a whole.
+     */
+    private static volatile ResourceSnapshot snapshot = ResourceSnapshot.EMPTY;
 
+    /**
+     * Returns an immutable view of the currently loaded joint skeletons.
+     */
     public static Map<ResourceLocation, JointSkeleton> getJointSkeletons() {
-        return JOINT_SKELETONS;
+        return snapshot.jointSkeletons();
     }
 
+    /**
+     * Returns an immutable view of the currently loaded animation sequences.
+     */
     public static Map<ResourceLocation, AnimationSequence> getAnimationSequences() {
-        return ANIMATION_SEQUENCES;
+        return snapshot.animationSequences();
+    }
+
+    /**
+     * Returns the generation of the currently loaded resources, which increases every time resources are reloaded.
+     * References to loaded resources that were resolved in an earlier generation may be out of date.
+     */
+    public static int getGeneration() {
+        return snapshot.generation();
     }
 
     public static JointSkeleton getOrThrowJointSkeleton(ResourceLocation jointSkeletonLocation) {
-        if (JOINT_SKELETONS.containsKey(jointSkeletonLocation)) {
-            return JOINT_SKELETONS.get(jointSkeletonLocation);
+        Map<ResourceLocation, JointSkeleton> jointSkeletons = snapshot.jointSkeletons();
+        JointSkeleton jointSkeleton = jointSkeletons.get(jointSkeletonLocation);
+        if (jointSkeleton != null) {
+            return jointSkeleton;
         } else {
-            throw new IllegalArgumentException("Tried to access joint skeleton from resource location " + jointSkeletonLocation + ", but it was not found in the loaded data: " + JOINT_SKELETONS.keySet());
+            throw new IllegalArgumentException("Tried to access joint skeleton from resource location " + jointSkeletonLocation + ", but it was not found in the loaded data: " + jointSkeletons.keySet());
         }
     }
 
     public static AnimationSequence getOrThrowAnimationSequence(ResourceLocation sequenceLocation) {
-        if (ANIMATION_SEQUENCES.containsKey(sequenceLocation)) {
-            return ANIMATION_SEQUENCES.get(sequenceLocation);
+        AnimationSequence animationSequence = snapshot.animationSequences().get(sequenceLocation);
+        if (animationSequence != null) {
+            return animationSequence;
         } else {
             throw new IllegalArgumentException("Tried to access animation sequence from resource location " + sequenceLocation + ", but it was not found in the loaded data.");
         }
     }
 
+    /**
+     * Reloads joint skeletons and animation sequences from the resource manager.
+     * <p>
+     * Reloads are incremental. Joint skeletons whose source file is unchanged keep their existing instance, and
+     * animation sequences whose source file, bake settings and joint skeleton are all unchanged keep their existing baked
+     * sequence without being parsed or baked again. Data containers are only re-initialized if their joint skeleton changed.
+     * <p>
+     * Loading works against the snapshot that was current when the reload started, and the loaded resources are
+     * published together as a new snapshot in a single step once loading has finished.
+     */
     public static CompletableFuture<Void> reload(PreparableReloadListener.PreparationBarrier barrier, ResourceManager manager, Executor backgroundExecutor, Executor gameExecutor) {
-        CompletableFuture<Map<ResourceLocation, JointSkeleton>> loadedJointSkeletons = loadJointSkeletons(manager, backgroundExecutor);
-        CompletableFuture<Map<ResourceLocation, AnimationSequence>> loadedAnimationSequences = loadAnimationSequences(manager, backgroundExecutor);
+        LocomotionConfig.Data.AnimationSequences sequenceConfig = LocomotionMain.CONFIG.data().animationSequences;
+        SequenceBakeSettings bakeSettings = SequenceBakeSettings.of(sequenceConfig);
+        AnimationSequenceBakeCache bakeCache = sequenceConfig.cacheBakedSequences ? AnimationSequenceBakeCache.of(BAKE_CACHE_PATH, sequenceConfig) : null;
+        ResourceSnapshot previousSnapshot = snapshot;
+        Map<ResourceLocation, HashCode> loadedSourceHashes = new ConcurrentHashMap<>();
+        CompletableFuture<Map<ResourceLocation, CompletableFuture<JointSkeleton>>> jointSkeletonTasks = loadJointSkeletons(manager, backgroundExecutor, previousSnapshot, loadedSourceHashes);
+        CompletableFuture<Map<ResourceLocation, JointSkeleton>> loadedJointSkeletons = jointSkeletonTasks.thenCompose(LocomotionResources::collectResources);
+        CompletableFuture<Map<ResourceLocation, AnimationSequence>> loadedAnimationSequences = jointSkeletonTasks
+                .thenCompose(loadingJointSkeletons -> loadAnimationSequences(manager, backgroundExecutor, previousSnapshot, loadingJointSkeletons, bakeCache, sequenceConfig, bakeSettings, loadedSourceHashes))
+                .thenCompose(LocomotionResources::collectResources)
+                .thenApplyAsync(animationSequences -> {
+                    // Every sequence has been loaded, so any bake cache entry that was not referenced belongs to no current sequence.
+                    if (bakeCache != null) {
+                        bakeCache.pruneUnreferencedEntries();
+                    }
+                    return animationSequences;
+                }, backgroundExecutor);
 
         return CompletableFuture.allOf(loadedJointSkeletons, loadedAnimationSequences)
                 .thenCompose(barrier::wait)
-                .thenCompose(voided -> CompletableFuture.runAsync(() -> {
-                    JOINT_SKELETONS.clear();
-                    JOINT_SKELETONS.putAll(loadedJointSkeletons.join());
-                    ANIMATION_SEQUENCES.clear();
-                    ANIMATION_SEQUENCES.putAll(loadedAnimationSequences.join());
-                    ANIMATION_SEQUENCES.replaceAll((resourceLocation, animationSequence) -> animationSequence.getBaked());
-                    LOGGER.info("Cleared and replaced Locomotion resource data.");
-                }));
-    }
-
-    private static CompletableFuture<Map<ResourceLocation, AnimationSequence>> loadAnimationSequences(ResourceManager manager, Executor backgroundExecutor) {
-        return loadJsonResources(
+                .thenRunAsync(() -> {
+                    ResourceSnapshot loadedSnapshot = ResourceSnapshot.of(loadedJointSkeletons.join(), loadedAnimationSequences.join(), loadedSourceHashes, bakeSettings, previousSnapshot.generation() + 1);
+                    int changedJointSkeletons = countChangedResources(previousSnapshot.jointSkeletons(), loadedSnapshot.jointSkeletons());
+                    int changedAnimationSequences = countChangedResources(previousSnapshot.animationSequences(), loadedSnapshot.animationSequences());
+                    snapshot = loadedSnapshot;
+                    SampledPoseCache.invalidateAll();
+                    if (changedJointSkeletons > 0) {
+                        JointAnimatorDispatcher.getInstance().reInitializeDataWithStaleJointSkeletons(getReplacedResources(previousSnapshot.jointSkeletons(), loadedSnapshot.jointSkeletons()));
+                    }
+                    LOGGER.info("Reloaded Locomotion resource data, with {} of {} joint skeletons and {} of {} animation sequences changed.", changedJointSkeletons, loadedSnapshot.jointSkeletons().size(), changedAnimationSequences, loadedSnapshot.animationSequences().size());
+                }, gameExecutor);
+    }
+
+    /**
+     * Compares the resources of two snapshots, where resources that are still the same instance count as unchanged.
+     * @return                      Number of resources that were added, replaced or removed.
+     */
+    private static <D> int countChangedResources(Map<ResourceLocation, D> resources, Map<ResourceLocation, D> loadedResources) {
+        int changedResources = 0;
+        for (ResourceLocation resourceLocation : resources.keySet()) {
+            if (!loadedResources.containsKey(resourceLocation)) {
+                changedResources++;
+            }
+        }
+        for (Map.Entry<ResourceLocation, D> entry : loadedResources.entrySet()) {
+            if (resources.get(entry.getKey()) != entry.getValue()) {
+                changedResources++;
+            }
+        }
+        return changedResources;
+    }
+
+    /**
+     * Returns the resources of a snapshot that are no longer loaded in the next one, having been replaced or removed.
+     * @return                      Identity-based set of the replaced resources
+     */
+    private static <D> Set<D> getReplacedResources(Map<ResourceLocation, D> resources, Map<ResourceLocation, D> loadedResources) {
+        Set<D> replacedResources = Collections.newSetFromMap(new IdentityHashMap<>());
+        resources.forEach((resourceLocation, resource) -> {
+            if (loadedResources.get(resourceLocation) != resource) {
+                replacedResources.add(resource);
+            }
+        });
+        return replacedResources;
+    }
+
+    private static AnimationSequence bakeAnimationSequence(ResourceLocation resourceLocation, AnimationSequence animationSequence, JointSkeleton jointSkeleton, LocomotionConfig.Data.AnimationSequences sequenceConfig) {
+        AnimationSequence bakedSequence = animationSequence.getBaked(jointSkeleton);
+        if (sequenceConfig.compressOnLoad) {
+            int uncompressedSize = bakedSequence.getTimelineDataSize();
+            bakedSequence.compress(
+                    sequenceConfig.compressionTranslationTolerance,
+                    sequenceConfig.compressionRotationTolerance,
+                    sequenceConfig.compressionScaleTolerance,
+                    sequenceConfig.compressionCustomAttributeTolerance
+            );
+            int compressedSize = bakedSequence.getTimelineDataSize();
+            LOGGER.info("Compressed animation sequence {} to {}% of its original size ({} -> {} bytes)", resourceLocation, uncompressedSize == 0 ? 100 : compressedSize * 100 / uncompressedSize, uncompressedSize, compressedSize);
+        }
+        return bakedSequence;
+    }
+
+    /**
+     * Bakes a loaded animation sequence against its joint skeleton. The currently loaded sequence is kept if neither
+     * the sequence nor its joint skeleton have changed, and otherwise the bake cache entry is used if there is a valid one.
+     * @return                      Baked sequence, or null if the sequence failed to load.
+     */
+    private static AnimationSequence bakeLoadedAnimationSequence(ResourceLocation resourceLocation, LoadedAnimationSequence loadedSequence, JointSkeleton jointSkeleton, ResourceSnapshot previousSnapshot, @Nullable AnimationSequenceBakeCache bakeCache, LocomotionConfig.Data.AnimationSequences sequenceConfig) {
+        AnimationSequence unchangedSequence = loadedSequence.unchangedSequence();
+        if (unchangedSequence != null && jointSkeleton == previousSnapshot.jointSkeletons().get(unchangedSequence.jointSkeletonLocation())) {
+            return unchangedSequence;
+        }
+        AnimationSequence bakedSequence;
+        AnimationSequenceBakeCache.Entry cacheEntry = loadedSequence.cacheEntry();
+        if (cacheEntry != null && cacheEntry.isBakedFor(jointSkeleton)) {
+            bakedSequence = cacheEntry.bakedSequence();
+            // Cache entries store quantized values at full precision, which quantize back to the same values.
+            if (sequenceConfig.compressOnLoad) {
+                bakedSequence.quantize();
+            }
+            LOGGER.info("Loaded baked animation sequence {} from the bake cache", resourceLocation);
+        } else {
+            AnimationSequence sourceSequence = loadedSequence.sourceSequence().get();
+            if (sourceSequence == null) {
+                return null;
+            }
+            bakedSequence = bakeAnimationSequence(resourceLocation, sourceSequence, jointSkeleton, sequenceConfig);
+            if (bakeCache != null) {
+                bakeCache.write(bakeCache.getKey(loadedSequence.sourceHash()), bakedSequence, jointSkeleton);
+            }
+        }
+        return sequenceConfig.resampleOnLoad ? bakedSequence.resampled(jointSkeleton, sequenceConfig.resampleRate) : bakedSequence;
+    }
+
+    /**
+     * Starts loading every animation sequence, baking each one as soon as both the sequence and its joint skeleton
+     * have been loaded.
+     */
+    private static CompletableFuture<Map<ResourceLocation, CompletableFuture<AnimationSequence>>> loadAnimationSequences(ResourceManager manager, Executor backgroundExecutor, ResourceSnapshot previousSnapshot, Map<ResourceLocation, CompletableFuture<JointSkeleton>> loadingJointSkeletons, @Nullable AnimationSequenceBakeCache bakeCache, LocomotionConfig.Data.AnimationSequences sequenceConfig, SequenceBakeSettings bakeSettings, Map<ResourceLocation, HashCode> loadedSourceHashes) {
+        boolean bakeSettingsUnchanged = bakeSettings.equals(previousSnapshot.sequenceBakeSettings());
+        // Binary sequences are stored under the same location as their JSON counterpart would be, so that sequences are
+        // referenced the same way regardless of their format.
+        CompletableFuture<Map<ResourceLocation, CompletableFuture<LoadedAnimationSequence>>> binarySequenceTasks = loadResources(
                 manager,
                 backgroundExecutor,
-                AnimationSequence.class,
                 ANIMATION_SEQUENCE_PATH,
-                resourceLocation -> LOGGER.info("Successfully loaded animation sequence {}", resourceLocation)
+                BinaryAnimationSequenceFormat.FILE_EXTENSION,
+                LocomotionResources::getBinaryAnimationSequenceLocation,
+                resourceLocation -> true,
+                (resourceLocation, resource) -> loadAnimationSequence(resourceLocation, getBinaryAnimationSequenceLocation(resourceLocation), resource, previousSnapshot, bakeCache, bakeSettingsUnchanged, loadedSourceHashes, LocomotionResources::parseBinaryAnimationSequence)
         );
+        // Binary sequences take priority over JSON sequences at the same location, which remain as the authoring format,
+        // so JSON sequences are only listed once the binary ones are known and are skipped before being read if overridden.
+        CompletableFuture<Map<ResourceLocation, CompletableFuture<LoadedAnimationSequence>>> loadedSequenceTasksFuture = binarySequenceTasks.thenCompose(binarySequences -> loadResources(
+                manager,
+                backgroundExecutor,
+                ANIMATION_SEQUENCE_PATH,
+                ".json",
+                resourceLocation -> resourceLocation,
+                resourceLocation -> !binarySequences.containsKey(resourceLocation),
+                (resourceLocation, resource) -> loadAnimationSequence(resourceLocation, resourceLocation, resource, previousSnapshot, bakeCache, bakeSettingsUnchanged, loadedSourceHashes, LocomotionResources::parseJsonAnimationSequence)
+        ).thenApply(jsonSequences -> {
+            Map<ResourceLocation, CompletableFuture<LoadedAnimationSequence>> loadedSequenceTasks = Maps.newHashMap(jsonSequences);
+            loadedSequenceTasks.putAll(binarySequences);
+            return loadedSequenceTasks;
+        }));
+        return loadedSequenceTasksFuture.thenApply(loadedSequenceTasks -> {
+            Map<ResourceLocation, CompletableFuture<AnimationSequence>> sequenceTasks = Maps.newHashMap();
+            loadedSequenceTasks.forEach((resourceLocation, loadedSequenceTask) -> sequenceTasks.put(resourceLocation, loadedSequenceTask.thenCompose(loadedSequence -> {
+                if (loadedSequence == null) {
+                    return CompletableFuture.completedFuture(null);
+                }
+                loadedSourceHashes.put(resourceLocation, loadedSequence.sourceHash());
+                CompletableFuture<JointSkeleton> jointSkeletonTask = loadingJointSkeletons.get(loadedSequence.jointSkeletonLocation());
+                if (jointSkeletonTask == null) {
+                    LOGGER.warn("Skipping loading of animation sequence {}, as its joint skeleton {} was not found.", resourceLocation, loadedSequence.jointSkeletonLocation());
+                    return CompletableFuture.completedFuture(null);
+                }
+                return jointSkeletonTask.thenApplyAsync(jointSkeleton -> {
+                    if (jointSkeleton == null) {
+                        LOGGER.warn("Skipping loading of animation sequence {}, as its joint skeleton {} failed to load.", resourceLocation, loadedSequence.jointSkeletonLocation());
+                        return null;
+                    }
+                    AnimationSequence bakedSequence = bakeLoadedAnimationSequence(resourceLocation, loadedSequence, jointSkeleton, previousSnapshot, bakeCache, sequenceConfig);
+                    // Additive variants are baked here on the background executor rather than by the first player to use them.
+                    if (bakedSequence != null && sequenceConfig.precomputeAdditiveSequences) {
+                        bakedSequence.precomputeAdditive();
+                    }
+                    return bakedSequence;
+                }, backgroundExecutor);
+            })));
+            return sequenceTasks;
+        });
+    }
+
+    private static ResourceLocation getBinaryAnimationSequenceLocation(ResourceLocation resourceLocation) {
+        return resourceLocation.withPath(path -> path.substring(0, path.length() - BinaryAnimationSequenceFormat.FILE_EXTENSION.length()) + ".json");
     }
 
-    private static CompletableFuture<Map<ResourceLocation, JointSkeleton>> loadJointSkeletons(ResourceManager manager, Executor backgroundExecutor) {
-        return loadJsonResources(
+    /**
+     * Reads the source file of an animation sequence. Sequences that are unchanged since the last reload are not parsed,
+     * nor are sequences that have a bake cache entry, unless they turn out to need baking again.
+     * @param resourceLocation      Location of the source file
+     * @param sequenceLocation      Location the sequence is stored at
+     * @param previousSnapshot      Snapshot that was current when the reload started
+     * @param bakeSettingsUnchanged Whether sequences are baked with the same settings as in the last reload
+     * @return                      Loaded sequence, or null if the sequence failed to parse.
+     */
+    private static LoadedAnimationSequence loadAnimationSequence(ResourceLocation resourceLocation, ResourceLocation sequenceLocation, Resource resource, ResourceSnapshot previousSnapshot, @Nullable AnimationSequenceBakeCache bakeCache, boolean bakeSettingsUnchanged, Map<ResourceLocation, HashCode> loadedSourceHashes, BiFunction<ResourceLocation, byte[], AnimationSequence> parser) {
+        byte[] sourceBytes = readResourceBytes(resourceLocation, resource, AnimationSequence.class);
+        HashCode sourceHash = Hashing.sha256().hashBytes(sourceBytes);
+        Supplier<AnimationSequence> sourceSequence = Suppliers.memoize(() -> parser.apply(resourceLocation, sourceBytes));
+
+        AnimationSequence loadedSequence = previousSnapshot.animationSequences().get(sequenceLocation);
+        if (bakeSettingsUnchanged && loadedSequence != null && sourceHash.equals(previousSnapshot.sourceHashes().get(sequenceLocation))) {
+            if (bakeCache != null) {
+                bakeCache.retain(bakeCache.getKey(sourceHash));
+            }
+            return new LoadedAnimationSequence(loadedSequence.jointSkeletonLocation(), sourceSequence, sourceHash, loadedSequence, null);
+        }
+        AnimationSequenceBakeCache.Entry cacheEntry = bakeCache != null ? bakeCache.read(bakeCache.getKey(sourceHash)) : null;
+        if (cacheEntry != null) {
+            return new LoadedAnimationSequence(cacheEntry.bakedSequence().jointSkeletonLocation(), sourceSequence, sourceHash, null, cacheEntry);
+        }
+        if (sourceSequence.get() == null) {
+            return null;
+        }
+        LOGGER.info("Successfully loaded animation sequence {}", resourceLocation);
+        return new LoadedAnimationSequence(sourceSequence.get().jointSkeletonLocation(), sourceSequence, sourceHash, null, null);
+    }
+
+    private static AnimationSequence parseJsonAnimationSequence(ResourceLocation resourceLocation, byte[] sourceBytes) {
+        return parseJsonResource(resourceLocation, sourceBytes, AnimationSequence.class);
+    }
+
+    private static AnimationSequence parseBinaryAnimationSequence(ResourceLocation resourceLocation, byte[] sourceBytes) {
+        try {
+            return BinaryAnimationSequenceFormat.read(ByteBuffer.wrap(sourceBytes));
+        } catch (IllegalArgumentException | BufferUnderflowException exception) {
+            LOGGER.warn("Skipping loading of binary asset {} due to a parsing error:", resourceLocation);
+            LOGGER.warn("--- {}", exception.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Animation sequence read from its source file, before it has been baked.
+     * @param jointSkeletonLocation Location of the sequence's joint skeleton
+     * @param sourceSequence        Unbaked sequence parsed from the source file when first requested, which is null if
+     *                              it failed to parse.
+     * @param sourceHash            Hash of the source file
+     * @param unchangedSequence     Currently loaded sequence if the source file and bake settings are unchanged, otherwise null.
+     * @param cacheEntry            Baked sequence from the bake cache, or null if it was not cached.
+     */
+    private record LoadedAnimationSequence(
+            ResourceLocation jointSkeletonLocation,
+            Supplier<AnimationSequence> sourceSequence,
+            HashCode sourceHash,
+            @Nullable AnimationSequence unchangedSequence,
+            @Nullable AnimationSequenceBakeCache.Entry cacheEntry
+    ) {
+    }
+
+    /**
+     * Settings that affect the result of baking an animation sequence, compared between reloads.
+     */
+    private record SequenceBakeSettings(
+            boolean resampleOnLoad,
+            float resampleRate,
+            boolean compressOnLoad,
+            float compressionTranslationTolerance,
+            float compressionRotationTolerance,
+            float compressionScaleTolerance,
+            float compressionCustomAttributeTolerance
+    ) {
+        private static SequenceBakeSettings of(LocomotionConfig.Data.AnimationSequences sequenceConfig) {
+            return new SequenceBakeSettings(
+                    sequenceConfig.resampleOnLoad,
+                    sequenceConfig.resampleRate,
+                    sequenceConfig.compressOnLoad,
+                    sequenceConfig.compressionTranslationTolerance,
+                    sequenceConfig.compressionRotationTolerance,
+                    sequenceConfig.compressionScaleTolerance,
+                    sequenceConfig.compressionCustomAttributeTolerance
+            );
+        }
+    }
+
+    /**
+     * Immutable set of loaded resources, along with what is needed to tell which resources change in the next reload.
+     * @param jointSkeletons        Loaded joint skeletons
+     * @param animationSequences    Loaded and baked animation sequences
+     * @param sourceHashes          Hash of the source file of every loaded resource
+     * @param sequenceBakeSettings  Settings the animation sequences were baked with, or null if nothing has been loaded yet.
+     * @param generation            Number of reloads that have been published, including this one.
+     */
+    private record ResourceSnapshot(
+            Map<ResourceLocation, JointSkeleton> jointSkeletons,
+            Map<ResourceLocation, AnimationSequence> animationSequences,
+            Map<ResourceLocation, HashCode> sourceHashes,
+            @Nullable SequenceBakeSettings sequenceBakeSettings,
+            int generation
+    ) {
+        private static final ResourceSnapshot EMPTY = new ResourceSnapshot(ImmutableMap.of(), ImmutableMap.of(), ImmutableMap.of(), null, 0);
+
+        private static ResourceSnapshot of(Map<ResourceLocation, JointSkeleton> jointSkeletons, Map<ResourceLocation, AnimationSequence> animationSequences, Map<ResourceLocation, HashCode> sourceHashes, SequenceBakeSettings sequenceBakeSettings, int generation) {
+            return new ResourceSnapshot(
+                    ImmutableMap.copyOf(jointSkeletons),
+                    ImmutableMap.copyOf(animationSequences),
+                    ImmutableMap.copyOf(sourceHashes),
+                    sequenceBakeSettings,
+                    generation
+            );
+        }
+    }
+
+    /**
+     * Starts loading every joint skeleton. Joint skeletons whose source file is unchanged since the last reload keep
+     * their existing instance, so that data containers and sequences built for them stay valid.
+     */
+    private static CompletableFuture<Map<ResourceLocation, CompletableFuture<JointSkeleton>>> loadJointSkeletons(ResourceManager manager, Executor backgroundExecutor, ResourceSnapshot previousSnapshot, Map<ResourceLocation, HashCode> loadedSourceHashes) {
+        return loadResources(
                 manager,
                 backgroundExecutor,
-                JointSkeleton.class,
                 JOINT_SKELETON_PATH,
-                resourceLocation -> LOGGER.info("Successfully loaded joint skeleton {}", resourceLocation)
+                ".json",
+                resourceLocation -> resourceLocation,
+                resourceLocation -> true,
+                (resourceLocation, resource) -> {
+                    byte[] sourceBytes = readResourceBytes(resourceLocation, resource, JointSkeleton.class);
+                    HashCode sourceHash = Hashing.sha256().hashBytes(sourceBytes);
+                    JointSkeleton loadedJointSkeleton = previousSnapshot.jointSkeletons().get(resourceLocation);
+                    JointSkeleton jointSkeleton = loadedJointSkeleton != null && sourceHash.equals(previousSnapshot.sourceHashes().get(resourceLocation))
+                            ? loadedJointSkeleton
+                            : parseJsonResource(resourceLocation, sourceBytes, JointSkeleton.class);
+                    if (jointSkeleton != null) {
+                        loadedSourceHashes.put(resourceLocation, sourceHash);
+                        if (jointSkeleton != loadedJointSkeleton) {
+                            LOGGER.info("Successfully loaded joint skeleton {}", resourceLocation);
+                        }
+                    }
+                    return jointSkeleton;
+                }
         );
     }
 
-    private static <D> CompletableFuture<Map<ResourceLocation, D>> loadJsonResources(ResourceManager manager, Executor backgroundExecutor, Class<D> type, String pathToListFrom, Consumer<ResourceLocation> onSuccessfullyLoaded) {
+    private static byte[] readResourceBytes(ResourceLocation resourceLocation, Resource resource, Class<?> type) {
+        try (InputStream inputStream = resource.open()) {
+            return inputStream.readAllBytes();
+        } catch (IOException exception) {
+            LOGGER.error("Encountered error while reading asset {} of type {}:", resourceLocation, type.getSimpleName());
+            LOGGER.error("--- {}", exception.getMessage());
+            throw new RuntimeException(exception);
+        }
+    }
+
+    /**
+     * Deserializes a JSON resource straight from its bytes, so that types with streaming adapters never build a JSON tree.
+     * @return                      Deserialized resource, or null if it failed to parse.
+     */
+    private static <D> D parseJsonResource(ResourceLocation resourceLocation, byte[] sourceBytes, Class<D> type) {
+        try (Reader reader = new InputStreamReader(new ByteArrayInputStream(sourceBytes), StandardCharsets.UTF_8)) {
+            D deserializedAsset = GsonConfiguration.getInstance().fromJson(reader, type);
+            if (deserializedAsset == null) {
+                throw new JsonParseException("JSON asset is empty.");
+            }
+            return deserializedAsset;
+        } catch (JsonParseException | IOException exception) {
+            LOGGER.warn("Skipping loading of JSON asset {} of type {} due to a JSON parsing error:", resourceLocation, type.getSimpleName());
+            LOGGER.warn("--- {}", exception.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Lists the resources with the provided file extension, and submits a separate task to the background executor to
+     * load each one, so that files are loaded in parallel.
+     * @param manager               Resource manager to list resources from
+     * @param backgroundExecutor    Executor to load resources on
+     * @param pathToListFrom        Resource directory to list from
+     * @param fileExtension         File extension of the resources to load
+     * @param locationMapper        Maps the location of a resource file to the location the loaded resource is stored at
+     * @param locationFilter        Whether to load the resource stored at a location. Resources that are filtered out are never read.
+     * @param loader                Loads a single resource, returning null if it should be skipped.
+     * @return                      Future of the loading task of every resource, by the location it is stored at
+     */
+    private static <D> CompletableFuture<Map<ResourceLocation, CompletableFuture<D>>> loadResources(ResourceManager manager, Executor backgroundExecutor, String pathToListFrom, String fileExtension, UnaryOperator<ResourceLocation> locationMapper, Predicate<ResourceLocation> locationFilter, BiFunction<ResourceLocation, Resource, D> loader) {
         return CompletableFuture.supplyAsync(() -> {
-            Predicate<ResourceLocation> isAssetJson = resourceLocation -> resourceLocation.getPath().endsWith(".json");
-            Map<ResourceLocation, Resource> foundResources = manager.listResources(pathToListFrom, isAssetJson);
+            Predicate<ResourceLocation> hasFileExtension = resourceLocation -> resourceLocation.getPath().endsWith(fileExtension);
+            Map<ResourceLocation, Resource> foundResources = manager.listResources(pathToListFrom, hasFileExtension);
 
-            Map<ResourceLocation, D> deserializedResources = Maps.newHashMap();
+            Map<ResourceLocation, CompletableFuture<D>> resourceTasks = Maps.newHashMap();
             foundResources.forEach((resourceLocation, resource) -> {
-                try {
-                    try (BufferedReader reader = resource.openAsReader()) {
-                        JsonElement jsonElement = GsonHelper.fromJson(GsonConfiguration.getInstance(), reader, JsonElement.class);
-                        D deserializedAsset = GsonConfiguration.getInstance().fromJson(jsonElement, type);
-                        deserializedResources.put(resourceLocation, deserializedAsset);
-                        onSuccessfullyLoaded.accept(resourceLocation);
-                    } catch (JsonParseException exception) {
-                        LOGGER.warn("Skipping loading of JSON asset {} of type {} due to a JSON parsing error:", resourceLocation, type.getSimpleName());
-                        LOGGER.warn("--- {}", exception.getMessage());
-                    }
-                } catch (IOException exception) {
-                    LOGGER.error("Encountered error while reading asset {} of type {}:", resourceLocation, type.getSimpleName());
-                    LOGGER.error("--- {}", exception.getMessage());
-                    throw new RuntimeException(exception);
+                ResourceLocation storedLocation = locationMapper.apply(resourceLocation);
+                if (locationFilter.test(storedLocation)) {
+                    resourceTasks.put(storedLocation, CompletableFuture.supplyAsync(() -> loader.apply(resourceLocation, resource), backgroundExecutor));
                 }
             });
-            return deserializedResources;
+            return resourceTasks;
         }, backgroundExecutor);
     }
+
+    /**
+     * Waits for every resource loading task, merging the loaded resources into one map as each task completes.
+     * Resources that were skipped are left out.
+     */
+    private static <D> CompletableFuture<Map<ResourceLocation, D>> collectResources(Map<ResourceLocation, CompletableFuture<D>> resourceTasks) {
+        Map<ResourceLocation, D> loadedResources = new ConcurrentHashMap<>();
+        CompletableFuture<?>[] collectingTasks = resourceTasks.entrySet().stream()
+                .map(entry -> entry.getValue().thenAccept(resource -> {
+                    if (resource != null) {
+                        loadedResources.put(entry.getKey(), resource);
+                    }
+                }))
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(collectingTasks).thenApply(voided -> loadedResources);
+    }
 }
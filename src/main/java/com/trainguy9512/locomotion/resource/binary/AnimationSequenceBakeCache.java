@@ -0,0 +1,210 @@
+package com.trainguy9512.locomotion.resource.binary;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.trainguy9512.locomotion.animation.joint.skeleton.JointSkeleton;
+import com.trainguy9512.locomotion.animation.sequence.AnimationSequence;
+import com.trainguy9512.locomotion.config.LocomotionConfig;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Directory of baked animation sequences, so that sequences that have not changed since the last reload can be loaded
+ * without parsing and baking them again.
+ * <p>
+ * Entries are keyed by a hash of the sequence's source file along with the bake settings and format versions, so any
+ * change to either produces a new key. Since baking also depends on the joint skeleton, every entry stores a fingerprint
+ * of the skeleton it was baked against, which has to match the loaded skeleton for the entry to be used. Entries are
+ * stored in the {@link BinaryAnimationSequenceFormat} and read through a memory-mapped file.
+ * <p>
+ * A bake cache is created for each reload, and keeps track of the keys that the reload looks up or writes. Once the
+ * reload has loaded every sequence, {@link AnimationSequenceBakeCache#pruneUnreferencedEntries()} deletes the entries
+ * that were not referenced, such as those of edited sequences or of earlier bake settings, so the directory does not
+ * keep growing.
+ */
+public class AnimationSequenceBakeCache {
+
+    private static final Logger LOGGER = LogManager.getLogger("Locomotion/Resources/BakeCache");
+    private static final int CACHE_VERSION = 1;
+
+    private final Path directory;
+    private final LocomotionConfig.Data.AnimationSequences sequenceConfig;
+    private final Set<String> referencedKeys;
+
+    private AnimationSequenceBakeCache(Path directory, LocomotionConfig.Data.AnimationSequences sequenceConfig) {
+        this.directory = directory;
+        this.sequenceConfig = sequenceConfig;
+        this.referencedKeys = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Creates a bake cache for sequences baked with the provided settings.
+     * @param directory             Directory to store cache entries in, created when the first entry is written.
+     * @param sequenceConfig        Settings that sequences are baked with
+     */
+    public static AnimationSequenceBakeCache of(Path directory, LocomotionConfig.Data.AnimationSequences sequenceConfig) {
+        return new AnimationSequenceBakeCache(directory, sequenceConfig);
+    }
+
+    /**
+     * Returns the key of the cache entry for a sequence with the provided source file hash.
+     * @param sourceHash            Hash of the sequence's source file
+     */
+    public String getKey(HashCode sourceHash) {
+        Hasher hasher = Hashing.sha256().newHasher()
+                .putInt(CACHE_VERSION)
+                .putInt(BinaryAnimationSequenceFormat.FORMAT_VERSION)
+                .putBoolean(this.sequenceConfig.compressOnLoad);
+        if (this.sequenceConfig.compressOnLoad) {
+            hasher.putFloat(this.sequenceConfig.compressionTranslationTolerance)
+                    .putFloat(this.sequenceConfig.compressionRotationTolerance)
+                    .putFloat(this.sequenceConfig.compressionScaleTolerance)
+                    .putFloat(this.sequenceConfig.compressionCustomAttributeTolerance);
+        }
+        return hasher.putBytes(sourceHash.asBytes()).hash().toString();
+    }
+
+    /**
+     * Returns a fingerprint of the parts of a joint skeleton that baking depends on, being its joints and custom attributes.
+     */
+    public static long getSkeletonFingerprint(JointSkeleton jointSkeleton) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        for (String joint : new TreeSet<>(jointSkeleton.getJoints())) {
+            hasher.putString(joint, StandardCharsets.UTF_8).putByte((byte) 0);
+        }
+        hasher.putByte((byte) 1);
+        for (String customAttribute : new TreeSet<>(jointSkeleton.getCustomAttributeDefaults().keySet())) {
+            hasher.putString(customAttribute, StandardCharsets.UTF_8).putByte((byte) 0);
+        }
+        return hasher.hash().asLong();
+    }
+
+    private Path getEntryPath(String key) {
+        return this.directory.resolve(key + BinaryAnimationSequenceFormat.FILE_EXTENSION);
+    }
+
+    /**
+     * Reads the cache entry with the provided key.
+     * @param key                   Key from {@link AnimationSequenceBakeCache#getKey(HashCode)}
+     * @return                      Cached entry, or null if there is no valid entry for the key.
+     */
+    public @Nullable Entry read(String key) {
+        this.retain(key);
+        Path entryPath = this.getEntryPath(key);
+        if (!Files.isRegularFile(entryPath)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(entryPath, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            long skeletonFingerprint = buffer.getLong();
+            return new Entry(BinaryAnimationSequenceFormat.read(buffer), skeletonFingerprint);
+        } catch (IOException | IllegalArgumentException | BufferUnderflowException exception) {
+            LOGGER.warn("Ignoring unreadable bake cache entry {}: {}", entryPath, exception.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes a baked sequence to the cache, replacing any existing entry with the same key.
+     * @param key                   Key from {@link AnimationSequenceBakeCache#getKey(HashCode)}
+     * @param bakedSequence         Sequence after baking and compression
+     * @param jointSkeleton         Joint skeleton the sequence was baked against
+     */
+    public void write(String key, AnimationSequence bakedSequence, JointSkeleton jointSkeleton) {
+        this.retain(key);
+        Path entryPath = this.getEntryPath(key);
+        try {
+            Files.createDirectories(this.directory);
+            // Written to a temporary file first, so that an entry is never read while partially written.
+            Path temporaryPath = Files.createTempFile(this.directory, key, ".tmp");
+            try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(temporaryPath))) {
+                new DataOutputStream(outputStream).writeLong(getSkeletonFingerprint(jointSkeleton));
+                BinaryAnimationSequenceFormat.write(bakedSequence, outputStream);
+            } catch (IOException | IllegalArgumentException exception) {
+                Files.deleteIfExists(temporaryPath);
+                throw exception;
+            }
+            Files.move(temporaryPath, entryPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | IllegalArgumentException exception) {
+            LOGGER.warn("Failed to write bake cache entry {}: {}", entryPath, exception.getMessage());
+        }
+    }
+
+    /**
+     * Marks the entry with the provided key as still in use, so that it is kept when pruning. Reading and writing an
+     * entry already marks it, so this is only needed for sequences that are kept without touching the cache.
+     * @param key                   Key from {@link AnimationSequenceBakeCache#getKey(HashCode)}
+     */
+    public void retain(String key) {
+        this.referencedKeys.add(key);
+    }
+
+    /**
+     * Deletes every entry, and any leftover temporary file, that has not been referenced by this bake cache. Should only
+     * be called once every sequence has been loaded, since entries that are read or written afterwards are not kept.
+     */
+    public void pruneUnreferencedEntries() {
+        if (!Files.isDirectory(this.directory)) {
+            return;
+        }
+        int prunedEntries = 0;
+        try (DirectoryStream<Path> entryPaths = Files.newDirectoryStream(this.directory)) {
+            for (Path entryPath : entryPaths) {
+                String fileName = entryPath.getFileName().toString();
+                boolean isEntry = fileName.endsWith(BinaryAnimationSequenceFormat.FILE_EXTENSION);
+                if (!isEntry && !fileName.endsWith(".tmp")) {
+                    continue;
+                }
+                if (isEntry && this.referencedKeys.contains(fileName.substring(0, fileName.length() - BinaryAnimationSequenceFormat.FILE_EXTENSION.length()))) {
+                    continue;
+                }
+                try {
+                    Files.deleteIfExists(entryPath);
+                    prunedEntries++;
+                } catch (IOException exception) {
+                    LOGGER.warn("Failed to delete unused bake cache entry {}: {}", entryPath, exception.getMessage());
+                }
+            }
+        } catch (IOException exception) {
+            LOGGER.warn("Failed to prune bake cache directory {}: {}", this.directory, exception.getMessage());
+            return;
+        }
+        if (prunedEntries > 0) {
+            LOGGER.info("Deleted {} unused bake cache entries", prunedEntries);
+        }
+    }
+
+    /**
+     * Baked sequence read from the cache.
+     * @param bakedSequence         Sequence after baking and compression, with quantized timelines stored at full precision.
+     * @param skeletonFingerprint   Fingerprint of the joint skeleton the sequence was baked against
+     */
+    public record Entry(AnimationSequence bakedSequence, long skeletonFingerprint) {
+
+        /**
+         * Returns whether the entry was baked against a joint skeleton with the same joints and custom attributes.
+         */
+        public boolean isBakedFor(JointSkeleton jointSkeleton) {
+            return this.skeletonFingerprint == getSkeletonFingerprint(jointSkeleton);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.trainguy9512.locomotion.resource.binary;
+
+import com.trainguy9512.locomotion.animation.sequence.AnimationSequence;
+import com.trainguy9512.locomotion.util.BoolTimeline;
+import com.trainguy9512.locomotion.util.Easing;
+import com.trainguy9512.locomotion.util.FloatTimeline;
+import com.trainguy9512.locomotion.util.KeyframeTimeline;
+import com.trainguy9512.locomotion.util.QuatTimeline;
+import com.trainguy9512.locomotion.util.TimeSpan;
+import com.trainguy9512.locomotion.util.Vec3Timeline;
+import net.minecraft.resources.ResourceLocation;
+import org.joml.Quaternionf;
+import org.joml.Vector3f;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary container for animation sequences, stored in resource packs as {@code .locoanim} files.
+ * <p>
+ * The layout is big-endian and starts with a header holding the magic number, format version, sequence length and
+ * joint skeleton location. It is followed by the track table of every joint, where each track stores its keyframe
+ * count, then a packed block of keyframe times and a packed block of keyframe values. Custom attribute tracks and time
+ * markers follow in the same way.
+ * <p>
+ * Sequences are read straight from a {@link ByteBuffer} into their timelines, so no intermediate object tree is built
+ * like when parsing JSON. Only linear keyframes can be stored, which matches what the JSON format can express.
+ */
+public class BinaryAnimationSequenceFormat {
+
+    public static final String FILE_EXTENSION = ".locoanim";
+
+    private static final int MAGIC = 0x4C4F4341;
+    static final int FORMAT_VERSION = 1;
+
+    /**
+     * Reads an animation sequence from the buffer's current position.
+     * @param buffer                Buffer holding a binary animation sequence, such as a memory-mapped file.
+     * @return                      Unbaked animation sequence
+     * @throws IllegalArgumentException If the buffer does not hold a binary animation sequence of a supported version.
+     * @throws java.nio.BufferUnderflowException If the buffer ends before the sequence does.
+     */
+    public static AnimationSequence read(ByteBuffer buffer) {
+        if (buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Data is not a binary animation sequence.");
+        }
+        int version = buffer.getInt();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Binary animation sequence version " + version + " is not supported, expected version " + FORMAT_VERSION + ".");
+        }
+        float length = buffer.getFloat();
+        ResourceLocation jointSkeletonLocation = ResourceLocation.parse(readString(buffer));
+        AnimationSequence.Builder sequenceBuilder = AnimationSequence.builder(TimeSpan.ofSeconds(length), jointSkeletonLocation);
+
+        int jointCount = buffer.getInt();
+        for (int joint = 0; joint < jointCount; joint++) {
+            String jointName = readString(buffer);
+            sequenceBuilder.putJointTranslationTimeline(jointName, readVec3Timeline(buffer, length));
+            sequenceBuilder.putJointRotationTimeline(jointName, readQuatTimeline(buffer, length));
+            sequenceBuilder.putJointScaleTimeline(jointName, readVec3Timeline(buffer, length));
+            sequenceBuilder.putJointVisibilityTimeline(jointName, readBoolTimeline(buffer, length));
+        }
+        int customAttributeCount = buffer.getInt();
+        for (int customAttribute = 0; customAttribute < customAttributeCount; customAttribute++) {
+            String customAttributeName = readString(buffer);
+            sequenceBuilder.putCustomAttributeTimeline(customAttributeName, readFloatTimeline(buffer, length));
+        }
+        int timeMarkerCount = buffer.getInt();
+        for (int timeMarker = 0; timeMarker < timeMarkerCount; timeMarker++) {
+            String timeMarkerIdentifier = readString(buffer);
+            int timeCount = buffer.getInt();
+            for (int time = 0; time < timeCount; time++) {
+                sequenceBuilder.putTimeMarker(timeMarkerIdentifier, TimeSpan.ofSeconds(buffer.getFloat()));
+            }
+        }
+        return sequenceBuilder.build();
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Skips past the keyframe times of a track, returning the position the times start at. The keyframe count is
+     * checked against the rest of the buffer first, so that corrupt data fails to load before any timeline is allocated.
+     * @throws IllegalArgumentException If the keyframe count is negative or more times than the buffer has left.
+     */
+    private static int readKeyframeTimes(ByteBuffer buffer, int keyframeCount) {
+        if (keyframeCount < 0 || keyframeCount > buffer.remaining() / Float.BYTES) {
+            throw new IllegalArgumentException("Invalid keyframe count " + keyframeCount + " with " + buffer.remaining() + " bytes remaining.");
+        }
+        int timesPosition = buffer.position();
+        buffer.position(timesPosition + keyframeCount * Float.BYTES);
+        return timesPosition;
+    }
+
+    private static Vec3Timeline readVec3Timeline(ByteBuffer buffer, float length) {
+        int keyframeCount = buffer.getInt();
+        int timesPosition = readKeyframeTimes(buffer, keyframeCount);
+        Vec3Timeline timeline = Vec3Timeline.of(length, keyframeCount);
+        for (int keyframe = 0; keyframe < keyframeCount; keyframe++) {
+            float time = buffer.getFloat(timesPosition + keyframe * Float.BYTES);
+            timeline.addKeyframe(time, buffer.getFloat(), buffer.getFloat(), buffer.getFloat(), Easing.LINEAR);
+        }
+        return timeline;
+    }
+
+    private static QuatTimeline readQuatTimeline(ByteBuffer buffer, float length) {
+        int keyframeCount = buffer.getInt();
+        int timesPosition = readKeyframeTimes(buffer, keyframeCount);
+        QuatTimeline timeline = QuatTimeline.of(length, keyframeCount);
+        for (int keyframe = 0; keyframe < keyframeCount; keyframe++) {
+            float time = buffer.getFloat(timesPosition + keyframe * Float.BYTES);
+            timeline.addKeyframe(time, buffer.getFloat(), buffer.getFloat(), buffer.getFloat(), buffer.getFloat(), Easing.LINEAR);
+        }
+        return timeline;
+    }
+
+    private static BoolTimeline readBoolTimeline(ByteBuffer buffer, float length) {
+        int keyframeCount = buffer.getInt();
+        int timesPosition = readKeyframeTimes(buffer, keyframeCount);
+        BoolTimeline timeline = BoolTimeline.of(length, keyframeCount);
+        for (int keyframe = 0; keyframe < keyframeCount; keyframe++) {
+            float time = buffer.getFloat(timesPosition + keyframe * Float.BYTES);
+            timeline.addKeyframe(time, buffer.get() != 0, Easing.LINEAR);
+        }
+        return timeline;
+    }
+
+    private static FloatTimeline readFloatTimeline(ByteBuffer buffer, float length) {
+        int keyframeCount = buffer.getInt();
+        int timesPosition = readKeyframeTimes(buffer, keyframeCount);
+        FloatTimeline timeline = FloatTimeline.of(length, keyframeCount);
+        for (int keyframe = 0; keyframe < keyframeCount; keyframe++) {
+            float time = buffer.getFloat(timesPosition + keyframe * Float.BYTES);
+            timeline.addKeyframe(time, buffer.getFloat(), Easing.LINEAR);
+        }
+        return timeline;
+    }
+
+    /**
+     * Writes an animation sequence in the binary format. Quantized timelines are written at full precision.
+     * @param sequence              Animation sequence to write
+     * @param outputStream          Stream to write onto, which is not closed.
+     * @throws IllegalArgumentException If a timeline of the sequence has keyframes with an easing other than linear.
+     */
+    public static void write(AnimationSequence sequence, OutputStream outputStream) throws IOException {
+        DataOutputStream output = new DataOutputStream(outputStream);
+        output.writeInt(MAGIC);
+        output.writeInt(FORMAT_VERSION);
+        output.writeFloat(sequence.length().inSeconds());
+        writeString(output, sequence.jointSkeletonLocation().toString());
+
+        output.writeInt(sequence.translationTimelines().size());
+        Vector3f vector = new Vector3f();
+        Quaternionf rotation = new Quaternionf();
+        for (String jointName : sequence.translationTimelines().keySet()) {
+            writeString(output, jointName);
+
+            Vec3Timeline translationTimeline = sequence.translationTimelines().get(jointName);
+            writeKeyframeTimes(output, translationTimeline);
+            for (int keyframe = 0; keyframe < translationTimeline.getKeyframeCount(); keyframe++) {
+                writeVector(output, translationTimeline.getKeyframeValue(keyframe, vector));
+            }
+
+            QuatTimeline rotationTimeline = sequence.rotationTimelines().get(jointName);
+            writeKeyframeTimes(output, rotationTimeline);
+            for (int keyframe = 0; keyframe < rotationTimeline.getKeyframeCount(); keyframe++) {
+                rotationTimeline.getKeyframeValue(keyframe, rotation);
+                output.writeFloat(rotation.x);
+                output.writeFloat(rotation.y);
+                output.writeFloat(rotation.z);
+                output.writeFloat(rotation.w);
+            }
+
+            Vec3Timeline scaleTimeline = sequence.scaleTimelines().get(jointName);
+            writeKeyframeTimes(output, scaleTimeline);
+            for (int keyframe = 0; keyframe < scaleTimeline.getKeyframeCount(); keyframe++) {
+                writeVector(output, scaleTimeline.getKeyframeValue(keyframe, vector));
+            }
+
+            BoolTimeline visibilityTimeline = sequence.visibilityTimelines().get(jointName);
+            writeKeyframeTimes(output, visibilityTimeline);
+            for (int keyframe = 0; keyframe < visibilityTimeline.getKeyframeCount(); keyframe++) {
+                output.writeBoolean(visibilityTimeline.getKeyframeValue(keyframe));
+            }
+        }
+
+        output.writeInt(sequence.customAttributeTimelines().size());
+        for (Map.Entry<String, FloatTimeline> entry : sequence.customAttributeTimelines().entrySet()) {
+            writeString(output, entry.getKey());
+            FloatTimeline customAttributeTimeline = entry.getValue();
+            writeKeyframeTimes(output, customAttributeTimeline);
+            for (int keyframe = 0; keyframe < customAttributeTimeline.getKeyframeCount(); keyframe++) {
+                output.writeFloat(customAttributeTimeline.getKeyframeValue(keyframe));
+            }
+        }
+
+        output.writeInt(sequence.timeMarkers().size());
+        for (Map.Entry<String, List<TimeSpan>> entry : sequence.timeMarkers().entrySet()) {
+            writeString(output, entry.getKey());
+            output.writeInt(entry.getValue().size());
+            for (TimeSpan time : entry.getValue()) {
+                output.writeFloat(time.inSeconds());
+            }
+        }
+        output.flush();
+    }
+
+    private static void writeString(DataOutputStream output, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("String " + string + " is too long to be written to a binary animation sequence.");
+        }
+        output.writeShort(bytes.length);
+        output.write(bytes);
+    }
+
+    private static void writeKeyframeTimes(DataOutputStream output, KeyframeTimeline<?, ?> timeline) throws IOException {
+        output.writeInt(timeline.getKeyframeCount());
+        for (int keyframe = 0; keyframe < timeline.getKeyframeCount(); keyframe++) {
+            if (timeline.getKeyframeEasing(keyframe) != Easing.LINEAR) {
+                throw new IllegalArgumentException("Cannot write eased keyframes to a binary animation sequence.");
+            }
+            output.writeFloat(timeline.getKeyframeTime(keyframe));
+        }
+    }
+
+    private static void writeVector(DataOutputStream output, Vector3f vector) throws IOException {
+        output.writeFloat(vector.x);
+        output.writeFloat(vector.y);
+        output.writeFloat(vector.z);
+    }
+}
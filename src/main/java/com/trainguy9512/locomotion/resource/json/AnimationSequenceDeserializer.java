@@ -1,127 +1,332 @@
 package com.trainguy9512.locomotion.resource.json;
 
-import com.google.gson.*;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import com.trainguy9512.locomotion.animation.sequence.AnimationSequence;
 import com.trainguy9512.locomotion.resource.FormatVersion;
-import com.trainguy9512.locomotion.util.Interpolator;
+import com.trainguy9512.locomotion.util.BoolTimeline;
+import com.trainguy9512.locomotion.util.Easing;
+import com.trainguy9512.locomotion.util.FloatTimeline;
+import com.trainguy9512.locomotion.util.QuatTimeline;
 import com.trainguy9512.locomotion.util.TimeSpan;
-import com.trainguy9512.locomotion.util.Timeline;
+import com.trainguy9512.locomotion.util.Vec3Timeline;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.util.Mth;
 import org.joml.Quaternionf;
-import org.joml.Vector3f;
 
-import java.lang.reflect.Type;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
-public class AnimationSequenceDeserializer implements JsonDeserializer<AnimationSequence> {
+/**
+ * Streaming deserializer for animation sequences.
+ * <p>
+ * Sequence files are read token by token, with keyframe times and values written straight into primitive track
+ * buffers rather than first building a {@link com.google.gson.JsonElement} tree and boxing every keyframe value. The
+ * buffers are turned into timelines once the whole file has been read, since the sequence length is needed to create
+ * a timeline and is not guaranteed to come before the joint channels.
+ * <p>
+ * Only reading is handled. Writing is left to the adapter Gson would otherwise use, the same as for types registered
+ * with a {@link com.google.gson.JsonDeserializer}.
+ */
+public class AnimationSequenceDeserializer implements TypeAdapterFactory {
 
+    private static final String FORMAT_VERSION_KEY = "format_version";
     private static final String LENGTH_KEY = "length";
     private static final String JOINT_SKELETON_KEY = "joint_skeleton";
     private static final String JOINT_CHANNELS_KEY = "joint_channels";
     private static final String CUSTOM_ATTRIBUTES_KEY = "custom_attributes";
     private static final String TIME_MARKERS_KEY = "time_markers";
 
-    private static final List<String> REQUIRED_KEYS = List.of(
-            LENGTH_KEY,
-            JOINT_CHANNELS_KEY
-    );
+    private static final String TRANSLATION_KEY = "translation";
+    private static final String ROTATION_KEY = "rotation";
+    private static final String SCALE_KEY = "scale";
+    private static final String VISIBILITY_KEY = "visibility";
 
     @Override
-    public AnimationSequence deserialize(JsonElement jsonElement, Type type, JsonDeserializationContext context) throws JsonParseException {
-        JsonObject sequenceJsonObject = jsonElement.getAsJsonObject();
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        if (type.getRawType() != AnimationSequence.class) {
+            return null;
+        }
+        TypeAdapterFactory skipPast = this;
+        return (TypeAdapter<T>) new TypeAdapter<AnimationSequence>() {
+            @Override
+            public void write(JsonWriter writer, AnimationSequence sequence) throws IOException {
+                // The delegate is only looked up when writing, so that reading never depends on it.
+                gson.getDelegateAdapter(skipPast, TypeToken.get(AnimationSequence.class)).write(writer, sequence);
+            }
+
+            @Override
+            public AnimationSequence read(JsonReader reader) throws IOException {
+                return readSequence(reader);
+            }
+        };
+    }
+
+    private static AnimationSequence readSequence(JsonReader reader) throws IOException {
+        FormatVersion version = null;
+        Float sequenceLength = null;
+        String jointSkeleton = null;
+        Map<String, JointChannelBuffers> jointChannels = null;
+        Map<String, KeyframeBuffer> customAttributes = new LinkedHashMap<>();
+        Map<String, List<TimeSpan>> timeMarkers = new LinkedHashMap<>();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case FORMAT_VERSION_KEY -> version = FormatVersion.of(reader.nextInt());
+                case LENGTH_KEY -> sequenceLength = readFloat(reader);
+                case JOINT_SKELETON_KEY -> jointSkeleton = reader.nextString();
+                case JOINT_CHANNELS_KEY -> jointChannels = readJointChannels(reader);
+                case CUSTOM_ATTRIBUTES_KEY -> readCustomAttributes(reader, customAttributes);
+                case TIME_MARKERS_KEY -> readTimeMarkers(reader, timeMarkers);
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
 
-        FormatVersion version = FormatVersion.ofAssetJsonObject(sequenceJsonObject);
+        if (version == null) {
+            throw new JsonParseException("Asset does not contain valid format version field in JSON data.");
+        }
         if (version.isIncompatible()) {
             throw new JsonParseException("Animation sequence version is out of date for deserializer.");
         }
-
-        for (String key : REQUIRED_KEYS) {
-            if (!sequenceJsonObject.has(key)) {
-                throw new JsonParseException("Required key " + key + " not found in data.");
-            }
+        if (sequenceLength == null) {
+            throw new JsonParseException("Required key " + LENGTH_KEY + " not found in data.");
+        }
+        if (jointChannels == null) {
+            throw new JsonParseException("Required key " + JOINT_CHANNELS_KEY + " not found in data.");
+        }
+        if (jointSkeleton == null) {
+            throw new JsonParseException("Required key " + JOINT_SKELETON_KEY + " not found in data.");
         }
 
-        var potentialResourceLocation = ResourceLocation.read(sequenceJsonObject.get(JOINT_SKELETON_KEY).getAsString()).result();
+        var potentialResourceLocation = ResourceLocation.read(jointSkeleton).result();
         ResourceLocation jointSkeletonLocation;
         if (potentialResourceLocation.isPresent()) {
             jointSkeletonLocation = potentialResourceLocation.get().withPath(string -> "skeletons/" + string + ".json");
         } else {
-            throw new JsonParseException("Joint skeleton resource location " + sequenceJsonObject.get(JOINT_SKELETON_KEY).getAsString() + " is invalid.");
-        }
-        float sequenceLength = sequenceJsonObject.get(LENGTH_KEY).getAsFloat();
-        AnimationSequence.Builder sequenceBuilder = AnimationSequence.builder(TimeSpan.ofSeconds(sequenceLength), jointSkeletonLocation);
-
-        JsonObject jointChannelsJsonObject = sequenceJsonObject.getAsJsonObject(JOINT_CHANNELS_KEY);
-        jointChannelsJsonObject.asMap().forEach((joint, jointElement) -> {
-            JsonObject jointJsonObject = jointElement.getAsJsonObject();
-            Timeline<Vector3f> translationTimeline = deserializeTimeline(
-                    context,
-                    jointJsonObject,
-                    "translation",
-                    Vector3f.class,
-                    Interpolator.VECTOR_FLOAT,
-                    sequenceLength
-            );
-            Timeline<Quaternionf> rotationTimeline = deserializeTimeline(
-                    context,
-                    jointJsonObject,
-                    "rotation",
-                    Quaternionf.class,
-                    Interpolator.QUATERNION,
-                    sequenceLength
-            );
-            Timeline<Vector3f> scaleTimeline = deserializeTimeline(
-                    context,
-                    jointJsonObject,
-                    "scale",
-                    Vector3f.class,
-                    Interpolator.VECTOR_FLOAT,
-                    sequenceLength
-            );
-            Timeline<Boolean> visibilityTimeline = deserializeTimeline(
-                    context,
-                    jointJsonObject,
-                    "visibility",
-                    Boolean.class,
-                    Interpolator.BOOLEAN_KEYFRAME,
-                    sequenceLength
-            );
-            sequenceBuilder.putJointTranslationTimeline(joint, translationTimeline);
-            sequenceBuilder.putJointRotationTimeline(joint, rotationTimeline);
-            sequenceBuilder.putJointScaleTimeline(joint, scaleTimeline);
-            sequenceBuilder.putJointVisibilityTimeline(joint, visibilityTimeline);
-        });
-        JsonObject customAttributesJsonObject = sequenceJsonObject.getAsJsonObject(CUSTOM_ATTRIBUTES_KEY);
-        customAttributesJsonObject.asMap().forEach((customAttribute, customAttributeTimelineElement) -> {
-            sequenceBuilder.putCustomAttributeTimeline(customAttribute, deserializeTimeline(
-                    context,
-                    customAttributesJsonObject,
-                    customAttribute,
-                    Float.class,
-                    Interpolator.FLOAT,
-                    sequenceLength
-            ));
+            throw new JsonParseException("Joint skeleton resource location " + jointSkeleton + " is invalid.");
+        }
+        float length = sequenceLength;
+        AnimationSequence.Builder sequenceBuilder = AnimationSequence.builder(TimeSpan.ofSeconds(length), jointSkeletonLocation);
+
+        jointChannels.forEach((joint, jointChannel) -> {
+            sequenceBuilder.putJointTranslationTimeline(joint, jointChannel.translation.toVec3Timeline(length));
+            sequenceBuilder.putJointRotationTimeline(joint, jointChannel.rotation.toQuatTimeline(length));
+            sequenceBuilder.putJointScaleTimeline(joint, jointChannel.scale.toVec3Timeline(length));
+            sequenceBuilder.putJointVisibilityTimeline(joint, jointChannel.visibility.toBoolTimeline(length));
         });
+        customAttributes.forEach((customAttribute, keyframes) -> sequenceBuilder.putCustomAttributeTimeline(customAttribute, keyframes.toFloatTimeline(length)));
+        timeMarkers.forEach((timeMarkerIdentifier, times) -> times.forEach(time -> sequenceBuilder.putTimeMarker(timeMarkerIdentifier, time)));
+        return sequenceBuilder.build();
+    }
 
-        // Load time markers from the JSON file, if it has any.
-        if (sequenceJsonObject.has(TIME_MARKERS_KEY)) {
-            Map<String, JsonElement> timeMarkers = sequenceJsonObject.getAsJsonObject(TIME_MARKERS_KEY).asMap();
-            timeMarkers.forEach((timeMarkerIdentifier, timeMarkerElement) -> {
-                JsonArray times = timeMarkerElement.getAsJsonArray();
-                times.forEach(time -> sequenceBuilder.putTimeMarker(timeMarkerIdentifier, TimeSpan.ofSeconds(time.getAsFloat())));
-            });
+    private static Map<String, JointChannelBuffers> readJointChannels(JsonReader reader) throws IOException {
+        Map<String, JointChannelBuffers> jointChannels = new LinkedHashMap<>();
+        Quaternionf rotation = new Quaternionf();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String joint = reader.nextName();
+            KeyframeBuffer translation = null;
+            KeyframeBuffer rotations = null;
+            KeyframeBuffer scale = null;
+            KeyframeBuffer visibility = null;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case TRANSLATION_KEY -> translation = readVectorKeyframes(reader);
+                    case ROTATION_KEY -> rotations = readRotationKeyframes(reader, rotation);
+                    case SCALE_KEY -> scale = readVectorKeyframes(reader);
+                    case VISIBILITY_KEY -> visibility = readBooleanKeyframes(reader);
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+            if (translation == null || rotations == null || scale == null || visibility == null) {
+                throw new JsonParseException("Joint channel " + joint + " is missing one of its translation, rotation, scale or visibility timelines.");
+            }
+            jointChannels.put(joint, new JointChannelBuffers(translation, rotations, scale, visibility));
         }
-        return sequenceBuilder.build();
+        reader.endObject();
+        return jointChannels;
     }
 
-    private static <X> Timeline<X> deserializeTimeline(JsonDeserializationContext context, JsonObject jsonObject, String identifier, Class<X> type, Interpolator<X> interpolator, float sequenceLength){
-        Timeline<X> timeline = Timeline.of(interpolator, sequenceLength);
-        jsonObject.getAsJsonObject(identifier).asMap().forEach((keyframeString, keyframeValueElement) -> {
-            float keyframe = Float.parseFloat(keyframeString);
-            timeline.addKeyframe(keyframe, context.deserialize(keyframeValueElement, type));
-        });
-        return timeline;
+    private static void readCustomAttributes(JsonReader reader, Map<String, KeyframeBuffer> customAttributes) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String customAttribute = reader.nextName();
+            KeyframeBuffer keyframes = new KeyframeBuffer(1);
+            reader.beginObject();
+            while (reader.hasNext()) {
+                int offset = keyframes.addKeyframe(readKeyframeTime(reader));
+                keyframes.values[offset] = readFloat(reader);
+            }
+            reader.endObject();
+            customAttributes.put(customAttribute, keyframes);
+        }
+        reader.endObject();
     }
-}
 
+    private static void readTimeMarkers(JsonReader reader, Map<String, List<TimeSpan>> timeMarkers) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String timeMarkerIdentifier = reader.nextName();
+            List<TimeSpan> times = new ArrayList<>();
+            reader.beginArray();
+            while (reader.hasNext()) {
+                times.add(TimeSpan.ofSeconds(readFloat(reader)));
+            }
+            reader.endArray();
+            timeMarkers.put(timeMarkerIdentifier, times);
+        }
+        reader.endObject();
+    }
+
+    private static KeyframeBuffer readVectorKeyframes(JsonReader reader) throws IOException {
+        KeyframeBuffer keyframes = new KeyframeBuffer(3);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            int offset = keyframes.addKeyframe(readKeyframeTime(reader));
+            reader.beginArray();
+            keyframes.values[offset] = readFloat(reader);
+            keyframes.values[offset + 1] = readFloat(reader);
+            keyframes.values[offset + 2] = readFloat(reader);
+            reader.endArray();
+        }
+        reader.endObject();
+        return keyframes;
+    }
+
+    /**
+     * Reads rotation keyframes stored as XYZ euler angles in degrees, converting them to quaternions as they are read.
+     */
+    private static KeyframeBuffer readRotationKeyframes(JsonReader reader, Quaternionf rotation) throws IOException {
+        KeyframeBuffer keyframes = new KeyframeBuffer(4);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            int offset = keyframes.addKeyframe(readKeyframeTime(reader));
+            reader.beginArray();
+            float x = readFloat(reader);
+            float y = readFloat(reader);
+            float z = readFloat(reader);
+            reader.endArray();
+            rotation.rotationZYX(z * Mth.DEG_TO_RAD, y * Mth.DEG_TO_RAD, x * Mth.DEG_TO_RAD);
+            keyframes.values[offset] = rotation.x;
+            keyframes.values[offset + 1] = rotation.y;
+            keyframes.values[offset + 2] = rotation.z;
+            keyframes.values[offset + 3] = rotation.w;
+        }
+        reader.endObject();
+        return keyframes;
+    }
+
+    private static KeyframeBuffer readBooleanKeyframes(JsonReader reader) throws IOException {
+        KeyframeBuffer keyframes = new KeyframeBuffer(1);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            int offset = keyframes.addKeyframe(readKeyframeTime(reader));
+            keyframes.values[offset] = reader.nextBoolean() ? 1 : 0;
+        }
+        reader.endObject();
+        return keyframes;
+    }
+
+    private static float readKeyframeTime(JsonReader reader) throws IOException {
+        String keyframeString = reader.nextName();
+        try {
+            return Float.parseFloat(keyframeString);
+        } catch (NumberFormatException exception) {
+            throw new JsonParseException("Keyframe time " + keyframeString + " is not a number.");
+        }
+    }
+
+    /**
+     * Reads a number the same way as {@link com.google.gson.JsonPrimitive#getAsFloat()}, parsing it directly as a
+     * float rather than rounding a double.
+     */
+    private static float readFloat(JsonReader reader) throws IOException {
+        String number = reader.nextString();
+        try {
+            return Float.parseFloat(number);
+        } catch (NumberFormatException exception) {
+            throw new JsonParseException("Expected a number but found " + number + ".");
+        }
+    }
+
+    private record JointChannelBuffers(KeyframeBuffer translation, KeyframeBuffer rotation, KeyframeBuffer scale, KeyframeBuffer visibility) {
+    }
+
+    /**
+     * Growable primitive buffer of keyframe times and packed values, in the order they were read.
+     */
+    private static class KeyframeBuffer {
+
+        private final int stride;
+        private float[] times;
+        private float[] values;
+        private int keyframeCount;
+
+        private KeyframeBuffer(int stride) {
+            this.stride = stride;
+            this.times = new float[4];
+            this.values = new float[4 * stride];
+            this.keyframeCount = 0;
+        }
+
+        /**
+         * Adds a keyframe at the provided time and returns the offset its value should be written to.
+         */
+        private int addKeyframe(float time) {
+            if (this.keyframeCount == this.times.length) {
+                this.times = Arrays.copyOf(this.times, this.times.length * 2);
+                this.values = Arrays.copyOf(this.values, this.times.length * this.stride);
+            }
+            this.times[this.keyframeCount] = time;
+            return this.keyframeCount++ * this.stride;
+        }
+
+        private Vec3Timeline toVec3Timeline(float length) {
+            Vec3Timeline timeline = Vec3Timeline.of(length, this.keyframeCount);
+            for (int keyframe = 0; keyframe < this.keyframeCount; keyframe++) {
+                int offset = keyframe * this.stride;
+                timeline.addKeyframe(this.times[keyframe], this.values[offset], this.values[offset + 1], this.values[offset + 2], Easing.LINEAR);
+            }
+            return timeline;
+        }
+
+        private QuatTimeline toQuatTimeline(float length) {
+            QuatTimeline timeline = QuatTimeline.of(length, this.keyframeCount);
+            for (int keyframe = 0; keyframe < this.keyframeCount; keyframe++) {
+                int offset = keyframe * this.stride;
+                timeline.addKeyframe(this.times[keyframe], this.values[offset], this.values[offset + 1], this.values[offset + 2], this.values[offset + 3], Easing.LINEAR);
+            }
+            return timeline;
+        }
+
+        private BoolTimeline toBoolTimeline(float length) {
+            BoolTimeline timeline = BoolTimeline.of(length, this.keyframeCount);
+            for (int keyframe = 0; keyframe < this.keyframeCount; keyframe++) {
+                timeline.addKeyframe(this.times[keyframe], this.values[keyframe] != 0, Easing.LINEAR);
+            }
+            return timeline;
+        }
+
+        private FloatTimeline toFloatTimeline(float length) {
+            FloatTimeline timeline = FloatTimeline.of(length, this.keyframeCount);
+            for (int keyframe = 0; keyframe < this.keyframeCount; keyframe++) {
+                timeline.addKeyframe(this.times[keyframe], this.values[keyframe], Easing.LINEAR);
+            }
+            return timeline;
+        }
+    }
+}
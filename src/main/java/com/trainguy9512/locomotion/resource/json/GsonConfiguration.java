@@ -3,7 +3,6 @@ package com.trainguy9512.locomotion.resource.json;
 import com.google.gson.*;
 import com.trainguy9512.locomotion.animation.joint.JointChannel;
 import com.trainguy9512.locomotion.animation.joint.skeleton.JointSkeleton;
-import com.trainguy9512.locomotion.animation.sequence.AnimationSequence;
 import com.trainguy9512.locomotion.resource.FormatVersion;
 import net.minecraft.client.model.geom.PartPose;
 import net.minecraft.util.Mth;
@@ -21,7 +20,7 @@ public class GsonConfiguration {
                 .setStrictness(Strictness.STRICT)
                 .registerTypeAdapter(Vector3f.class, vector3fDeserializer())
                 .registerTypeAdapter(Quaternionf.class, quaternionDeserializer())
-                .registerTypeAdapter(AnimationSequence.class, new AnimationSequenceDeserializer())
+                .registerTypeAdapterFactory(new AnimationSequenceDeserializer())
                 .registerTypeAdapter(JointSkeleton.class, new JointSkeletonDeserializer())
                 .registerTypeAdapter(FormatVersion.class, FormatVersion.getDeserializer())
                 .registerTypeAdapter(JointChannel.class, new JointChannelDeserializer())
@@ -0,0 +1,119 @@
+package com.trainguy9512.locomotion.util;
+
+import java.util.Arrays;
+
+/**
+ * Keyframe timeline of boolean values. Values are not interpolated; between two keyframes the timeline holds the value
+ * of the next keyframe, matching {@link Interpolator#BOOLEAN_KEYFRAME}.
+ */
+public class BoolTimeline extends KeyframeTimeline<BoolTimeline, Boolean> {
+
+    private boolean[] values;
+
+    private BoolTimeline(float length, int initialCapacity) {
+        super(length, initialCapacity);
+        this.values = new boolean[this.times.length];
+    }
+
+    private BoolTimeline(BoolTimeline timeline) {
+        super(timeline);
+        this.values = timeline.values.clone();
+    }
+
+    public static BoolTimeline of(float length) {
+        return of(length, 1);
+    }
+
+    /**
+     * Creates an empty timeline with room for the provided number of keyframes.
+     * @param length                Timeline length in seconds, used for looping.
+     * @param expectedKeyframes     Number of keyframes to reserve space for.
+     */
+    public static BoolTimeline of(float length, int expectedKeyframes) {
+        return new BoolTimeline(length, expectedKeyframes);
+    }
+
+    @Override
+    public BoolTimeline copy() {
+        return new BoolTimeline(this);
+    }
+
+    @Override
+    public BoolTimeline addKeyframe(float time, Boolean value, Easing easing) {
+        return this.addKeyframe(time, value.booleanValue(), easing);
+    }
+
+    public BoolTimeline addKeyframe(float time, boolean value, Easing easing) {
+        int index = this.insertKeyframe(time, easing);
+        this.values[index] = value;
+        return this;
+    }
+
+    @Override
+    protected void resizeValues(int capacity) {
+        this.values = Arrays.copyOf(this.values, capacity);
+    }
+
+    @Override
+    protected void shiftValues(int index, int count) {
+        System.arraycopy(this.values, index, this.values, index + 1, count);
+    }
+
+    @Override
+    protected boolean keyframeValuesEqual(int firstKeyframeIndex, int secondKeyframeIndex) {
+        return this.values[firstKeyframeIndex] == this.values[secondKeyframeIndex];
+    }
+
+    /**
+     * Since boolean timelines hold the value of the next keyframe, a keyframe can only be removed without error if it
+     * has the same value as the keyframe it would be replaced by.
+     */
+    @Override
+    protected float getInterpolationError(int firstKeyframeIndex, int secondKeyframeIndex, int keyframeIndex) {
+        return this.values[keyframeIndex] == this.values[secondKeyframeIndex] ? 0 : Float.POSITIVE_INFINITY;
+    }
+
+    @Override
+    protected void moveValue(int fromKeyframeIndex, int toKeyframeIndex) {
+        this.values[toKeyframeIndex] = this.values[fromKeyframeIndex];
+    }
+
+    @Override
+    protected int getValueDataSize() {
+        return this.values.length;
+    }
+
+    public boolean getKeyframeValue(int keyframeIndex) {
+        return this.values[keyframeIndex];
+    }
+
+    /**
+     * Samples the timeline at the provided time.
+     * @param time                  Time in seconds
+     * @param looping               Whether the time should be looped or not.
+     */
+    public boolean sample(float time, boolean looping) {
+        return this.sample(this.getSampleTime(time, looping));
+    }
+
+    /**
+     * Samples the timeline at the provided time.
+     * @param time                  Time in seconds
+     */
+    public boolean sample(float time) {
+        return this.sample(this.findKeyframeIndex(time), time);
+    }
+
+    /**
+     * Samples the timeline at the provided time, starting from an already known keyframe.
+     * @param keyframeIndex         Last keyframe at or before the time, from {@link KeyframeTimeline#findKeyframeIndex(float)}
+     * @param time                  Time in seconds
+     */
+    public boolean sample(int keyframeIndex, float time) {
+        int firstKeyframe = this.getFirstSampledKeyframe(keyframeIndex);
+        if (keyframeIndex >= 0 && this.times[keyframeIndex] == time) {
+            return this.values[firstKeyframe];
+        }
+        return this.values[this.getSecondSampledKeyframe(keyframeIndex)];
+    }
+}
@@ -0,0 +1,116 @@
+package com.trainguy9512.locomotion.util;
+
+import java.util.Arrays;
+
+/**
+ * Keyframe timeline of float values, linearly interpolated between keyframes.
+ */
+public class FloatTimeline extends KeyframeTimeline<FloatTimeline, Float> {
+
+    private float[] values;
+
+    private FloatTimeline(float length, int initialCapacity) {
+        super(length, initialCapacity);
+        this.values = new float[this.times.length];
+    }
+
+    private FloatTimeline(FloatTimeline timeline) {
+        super(timeline);
+        this.values = timeline.values.clone();
+    }
+
+    public static FloatTimeline of(float length) {
+        return of(length, 1);
+    }
+
+    /**
+     * Creates an empty timeline with room for the provided number of keyframes.
+     * @param length                Timeline length in seconds, used for looping.
+     * @param expectedKeyframes     Number of keyframes to reserve space for.
+     */
+    public static FloatTimeline of(float length, int expectedKeyframes) {
+        return new FloatTimeline(length, expectedKeyframes);
+    }
+
+    @Override
+    public FloatTimeline copy() {
+        return new FloatTimeline(this);
+    }
+
+    @Override
+    public FloatTimeline addKeyframe(float time, Float value, Easing easing) {
+        return this.addKeyframe(time, value.floatValue(), easing);
+    }
+
+    public FloatTimeline addKeyframe(float time, float value, Easing easing) {
+        int index = this.insertKeyframe(time, easing);
+        this.values[index] = value;
+        return this;
+    }
+
+    @Override
+    protected void resizeValues(int capacity) {
+        this.values = Arrays.copyOf(this.values, capacity);
+    }
+
+    @Override
+    protected void shiftValues(int index, int count) {
+        System.arraycopy(this.values, index, this.values, index + 1, count);
+    }
+
+    @Override
+    protected boolean keyframeValuesEqual(int firstKeyframeIndex, int secondKeyframeIndex) {
+        return this.values[firstKeyframeIndex] == this.values[secondKeyframeIndex];
+    }
+
+    @Override
+    protected float getInterpolationError(int firstKeyframeIndex, int secondKeyframeIndex, int keyframeIndex) {
+        float a = this.values[firstKeyframeIndex];
+        float b = this.values[secondKeyframeIndex];
+        float interpolated = a + (b - a) * this.getKeyframeProgress(firstKeyframeIndex, secondKeyframeIndex, keyframeIndex);
+        return Math.abs(this.values[keyframeIndex] - interpolated);
+    }
+
+    @Override
+    protected void moveValue(int fromKeyframeIndex, int toKeyframeIndex) {
+        this.values[toKeyframeIndex] = this.values[fromKeyframeIndex];
+    }
+
+    @Override
+    protected int getValueDataSize() {
+        return this.values.length * Float.BYTES;
+    }
+
+    public float getKeyframeValue(int keyframeIndex) {
+        return this.values[keyframeIndex];
+    }
+
+    /**
+     * Samples the timeline at the provided time.
+     * @param time                  Time in seconds
+     * @param looping               Whether the time should be looped or not.
+     */
+    public float sample(float time, boolean looping) {
+        return this.sample(this.getSampleTime(time, looping));
+    }
+
+    /**
+     * Samples the timeline at the provided time.
+     * @param time                  Time in seconds
+     */
+    public float sample(float time) {
+        return this.sample(this.findKeyframeIndex(time), time);
+    }
+
+    /**
+     * Samples the timeline at the provided time, starting from an already known keyframe.
+     * @param keyframeIndex         Last keyframe at or before the time, from {@link KeyframeTimeline#findKeyframeIndex(float)}
+     * @param time                  Time in seconds
+     */
+    public float sample(int keyframeIndex, float time) {
+        float a = this.values[this.getFirstSampledKeyframe(keyframeIndex)];
+        float b = this.values[this.getSecondSampledKeyframe(keyframeIndex)];
+        float progress = this.getEasedProgress(keyframeIndex, time);
+        return a + (b - a) * progress;
+    }
+}
@@ -0,0 +1,333 @@
+package com.trainguy9512.locomotion.util;
+
+import java.util.Arrays;
+
+/**
+ * Timeline that stores its keyframe times in a sorted primitive array, with values packed into primitive arrays by
+ * the implementing class.
+ * <p>
+ * Keyframes are found with a binary search over the keyframe times, and sampled values are written onto a provided
+ * destination, so sampling does not box or allocate. Keyframe easings are only stored once a keyframe uses an easing
+ * other than {@link Easing#LINEAR}.
+ *
+ * @param <S>   Type of the implementing timeline, returned by the builder-style methods.
+ * @param <V>   Type of keyframe value accepted when adding keyframes.
+ */
+public abstract class KeyframeTimeline<S extends KeyframeTimeline<S, V>, V> {
+
+    private static final int DEFAULT_CAPACITY = 4;
+    private static final int MAX_ADVANCE_STEPS = 8;
+
+    protected final float length;
+    protected float[] times;
+    private Easing[] easings;
+    protected int keyframeCount;
+
+    protected KeyframeTimeline(float length, int initialCapacity) {
+        this.length = length;
+        this.times = new float[Math.max(initialCapacity, 1)];
+        this.easings = null;
+        this.keyframeCount = 0;
+    }
+
+    protected KeyframeTimeline(float length) {
+        this(length, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Copies the keyframe times and easings of another timeline into new arrays.
+     */
+    protected KeyframeTimeline(KeyframeTimeline<S, V> timeline) {
+        this.length = timeline.length;
+        this.times = timeline.times.clone();
+        this.easings = timeline.easings != null ? timeline.easings.clone() : null;
+        this.keyframeCount = timeline.keyframeCount;
+    }
+
+    /**
+     * Creates a copy of this timeline that shares no keyframe arrays with it, so that either one can be modified in
+     * place, such as by {@link KeyframeTimeline#collapseIfConstant()}, without affecting the other.
+     * @return                      New timeline
+     */
+    public abstract S copy();
+
+    /**
+     * Adds a keyframe with linear easing, replacing any keyframe already at the same time.
+     * @param time                  Keyframe time in seconds
+     * @param value                 Keyframe value
+     * @return                      This timeline
+     */
+    public S addKeyframe(float time, V value) {
+        return this.addKeyframe(time, value, Easing.LINEAR);
+    }
+
+    /**
+     * Adds a keyframe, replacing any keyframe already at the same time.
+     * @param time                  Keyframe time in seconds
+     * @param value                 Keyframe value
+     * @param easing                Easing used when interpolating from the previous keyframe to this one
+     * @return                      This timeline
+     */
+    public abstract S addKeyframe(float time, V value, Easing easing);
+
+    /**
+     * Allocates room for the keyframe at the provided time and returns the index its value should be written to.
+     */
+    protected int insertKeyframe(float time, Easing easing) {
+        int index = Arrays.binarySearch(this.times, 0, this.keyframeCount, time);
+        if (index < 0) {
+            index = -index - 1;
+            if (this.keyframeCount == this.times.length) {
+                int capacity = this.times.length * 2;
+                this.times = Arrays.copyOf(this.times, capacity);
+                if (this.easings != null) {
+                    this.easings = Arrays.copyOf(this.easings, capacity);
+                }
+                this.resizeValues(capacity);
+            }
+            int keyframesAfter = this.keyframeCount - index;
+            if (keyframesAfter > 0) {
+                System.arraycopy(this.times, index, this.times, index + 1, keyframesAfter);
+                if (this.easings != null) {
+                    System.arraycopy(this.easings, index, this.easings, index + 1, keyframesAfter);
+                }
+                this.shiftValues(index, keyframesAfter);
+            }
+            this.times[index] = time;
+            this.keyframeCount++;
+        }
+        if (easing != Easing.LINEAR && this.easings == null) {
+            this.easings = new Easing[this.times.length];
+            Arrays.fill(this.easings, Easing.LINEAR);
+        }
+        if (this.easings != null) {
+            this.easings[index] = easing;
+        }
+        return index;
+    }
+
+    /**
+     * Resizes the packed value arrays to hold the provided number of keyframes.
+     */
+    protected abstract void resizeValues(int capacity);
+
+    /**
+     * Moves the values of the keyframes starting at the provided index one keyframe later.
+     */
+    protected abstract void shiftValues(int index, int count);
+
+    /**
+     * Returns whether the values of the two keyframes are exactly equal.
+     */
+    protected abstract boolean keyframeValuesEqual(int firstKeyframeIndex, int secondKeyframeIndex);
+
+    /**
+     * Returns whether every keyframe in the timeline holds the same value, meaning the timeline samples the same
+     * value at any point in time.
+     */
+    public boolean isConstant() {
+        for (int keyframeIndex = 1; keyframeIndex < this.keyframeCount; keyframeIndex++) {
+            if (!this.keyframeValuesEqual(0, keyframeIndex)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * If the timeline is constant, removes every keyframe but the first. Either way, the keyframe arrays are trimmed to
+     * the number of keyframes so that no unused capacity is kept.
+     * @return                      This timeline
+     */
+    @SuppressWarnings("unchecked")
+    public S collapseIfConstant() {
+        if (this.keyframeCount > 1 && this.isConstant()) {
+            this.keyframeCount = 1;
+        }
+        int capacity = Math.max(this.keyframeCount, 1);
+        if (this.times.length != capacity) {
+            this.times = Arrays.copyOf(this.times, capacity);
+            if (this.easings != null) {
+                this.easings = Arrays.copyOf(this.easings, capacity);
+            }
+            this.resizeValues(capacity);
+        }
+        return (S) this;
+    }
+
+    /**
+     * Removes keyframes that can be reproduced by interpolating between the keyframes around them, as long as every
+     * removed keyframe stays within the provided tolerance. The first and last keyframes are always kept.
+     * <p>
+     * Timelines with eased keyframes are left as they are, since removing a keyframe would change the easing of the
+     * segment around it.
+     * @param tolerance             Largest error allowed at a removed keyframe, measured by {@link KeyframeTimeline#getInterpolationError}.
+     * @return                      This timeline
+     */
+    public S reduceKeyframes(float tolerance) {
+        if (this.keyframeCount > 2 && this.easings == null) {
+            boolean[] keptKeyframes = new boolean[this.keyframeCount];
+            keptKeyframes[0] = true;
+            keptKeyframes[this.keyframeCount - 1] = true;
+            int anchorKeyframe = 0;
+            for (int keyframeIndex = 1; keyframeIndex < this.keyframeCount - 1; keyframeIndex++) {
+                // Removing this keyframe makes the previous kept keyframe interpolate straight to the next one, so
+                // every keyframe removed since then has to stay within the tolerance of that new segment.
+                for (int removedKeyframe = anchorKeyframe + 1; removedKeyframe <= keyframeIndex; removedKeyframe++) {
+                    if (this.getInterpolationError(anchorKeyframe, keyframeIndex + 1, removedKeyframe) > tolerance) {
+                        keptKeyframes[keyframeIndex] = true;
+                        anchorKeyframe = keyframeIndex;
+                        break;
+                    }
+                }
+            }
+            int keptKeyframeCount = 0;
+            for (int keyframeIndex = 0; keyframeIndex < this.keyframeCount; keyframeIndex++) {
+                if (keptKeyframes[keyframeIndex]) {
+                    if (keptKeyframeCount != keyframeIndex) {
+                        this.times[keptKeyframeCount] = this.times[keyframeIndex];
+                        this.moveValue(keyframeIndex, keptKeyframeCount);
+                    }
+                    keptKeyframeCount++;
+                }
+            }
+            this.keyframeCount = keptKeyframeCount;
+        }
+        return this.collapseIfConstant();
+    }
+
+    /**
+     * Returns the linear interpolation progress of a keyframe's time between two other keyframes.
+     */
+    protected float getKeyframeProgress(int firstKeyframeIndex, int secondKeyframeIndex, int keyframeIndex) {
+        float firstTime = this.times[firstKeyframeIndex];
+        return (this.times[keyframeIndex] - firstTime) / (this.times[secondKeyframeIndex] - firstTime);
+    }
+
+    /**
+     * Returns how far the value of a keyframe is from the value obtained by interpolating between two other keyframes
+     * at the keyframe's time.
+     * @param firstKeyframeIndex    Keyframe to interpolate from
+     * @param secondKeyframeIndex   Keyframe to interpolate towards
+     * @param keyframeIndex         Keyframe between the two to measure the error of
+     */
+    protected abstract float getInterpolationError(int firstKeyframeIndex, int secondKeyframeIndex, int keyframeIndex);
+
+    /**
+     * Copies the value of one keyframe onto another.
+     */
+    protected abstract void moveValue(int fromKeyframeIndex, int toKeyframeIndex);
+
+    /**
+     * Returns the approximate number of bytes used by the timeline's keyframe arrays.
+     */
+    public int getKeyframeDataSize() {
+        int easingsSize = this.easings == null ? 0 : this.easings.length * Integer.BYTES;
+        return this.times.length * Float.BYTES + easingsSize + this.getValueDataSize();
+    }
+
+    /**
+     * Returns the approximate number of bytes used by the timeline's packed values.
+     */
+    protected abstract int getValueDataSize();
+
+    public float getLength() {
+        return this.length;
+    }
+
+    public int getKeyframeCount() {
+        return this.keyframeCount;
+    }
+
+    public float getKeyframeTime(int keyframeIndex) {
+        return this.times[keyframeIndex];
+    }
+
+    public Easing getKeyframeEasing(int keyframeIndex) {
+        return this.easings == null ? Easing.LINEAR : this.easings[keyframeIndex];
+    }
+
+    /**
+     * Finds the last keyframe at or before the provided time.
+     * @param time                  Time in seconds
+     * @return                      Keyframe index, or -1 if the time is before the first keyframe.
+     */
+    public int findKeyframeIndex(float time) {
+        int low = 0;
+        int high = this.keyframeCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (this.times[middle] <= time) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return high;
+    }
+
+    /**
+     * Finds the last keyframe at or before the provided time, starting from a keyframe found by a previous search.
+     * <p>
+     * When time moves forward by a few keyframes or less, this walks forward from the previous keyframe instead of
+     * searching the whole timeline. If the time has moved backwards or too far forwards, it falls back to a binary search.
+     * @param previousKeyframeIndex Keyframe index found by the previous search, or -1 to walk from the start.
+     * @param time                  Time in seconds
+     * @return                      Keyframe index, or -1 if the time is before the first keyframe.
+     */
+    public int advanceKeyframeIndex(int previousKeyframeIndex, float time) {
+        if (previousKeyframeIndex >= this.keyframeCount || (previousKeyframeIndex >= 0 && this.times[previousKeyframeIndex] > time)) {
+            return this.findKeyframeIndex(time);
+        }
+        int keyframeIndex = previousKeyframeIndex;
+        for (int step = 0; step < MAX_ADVANCE_STEPS; step++) {
+            if (keyframeIndex + 1 >= this.keyframeCount || this.times[keyframeIndex + 1] > time) {
+                return keyframeIndex;
+            }
+            keyframeIndex++;
+        }
+        return this.findKeyframeIndex(time);
+    }
+
+    /**
+     * Returns the time the timeline should be sampled at, wrapped around the timeline length if looping.
+     */
+    public float getSampleTime(float time, boolean looping) {
+        return looping ? time % this.length : time;
+    }
+
+    /**
+     * Returns the eased progress between the keyframe at the provided index and the one after it, or zero if the time
+     * lands exactly on the keyframe or there is no next keyframe.
+     * @param keyframeIndex         Keyframe index from {@link KeyframeTimeline#findKeyframeIndex(float)}
+     * @param time                  Time in seconds
+     */
+    protected float getEasedProgress(int keyframeIndex, float time) {
+        if (keyframeIndex < 0 || keyframeIndex >= this.keyframeCount - 1) {
+            return 0;
+        }
+        float keyframeTime = this.times[keyframeIndex];
+        if (keyframeTime == time) {
+            return 0;
+        }
+        float relativeTime = (time - keyframeTime) / (this.times[keyframeIndex + 1] - keyframeTime);
+        return this.getKeyframeEasing(keyframeIndex + 1).ease(relativeTime);
+    }
+
+    /**
+     * Returns the index of the keyframe that a sample should start interpolating from.
+     */
+    protected int getFirstSampledKeyframe(int keyframeIndex) {
+        if (this.keyframeCount == 0) {
+            throw new IllegalStateException("Cannot sample a timeline with no keyframes.");
+        }
+        return Math.max(keyframeIndex, 0);
+    }
+
+    /**
+     * Returns the index of the keyframe that a sample should interpolate towards.
+     */
+    protected int getSecondSampledKeyframe(int keyframeIndex) {
+        return Math.min(Math.max(keyframeIndex + 1, 0), this.keyframeCount - 1);
+    }
+}
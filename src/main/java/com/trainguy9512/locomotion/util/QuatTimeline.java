@@ -0,0 +1,283 @@
+package com.trainguy9512.locomotion.util;
+
+import org.joml.Quaternionf;
+import org.joml.Quaternionfc;
+
+import java.util.Arrays;
+
+/**
+ * Keyframe timeline of rotations, spherically interpolated between keyframes. Values are packed as consecutive
+ * x, y, z, w floats.
+ * <p>
+ * Once all keyframes have been added, the timeline can be {@link QuatTimeline#quantize() quantized}, which stores every
+ * rotation in 48 bits using the smallest three encoding. The largest component of a unit quaternion can be rebuilt
+ * from the other three, so only its index is stored, along with the three remaining components at 15 bits each.
+ */
+public class QuatTimeline extends KeyframeTimeline<QuatTimeline, Quaternionfc> {
+
+    private static final int STRIDE = 4;
+    private static final int QUANTIZED_STRIDE = 3;
+    // Even, so that a component of zero is stored exactly at the midpoint.
+    private static final int QUANTIZED_COMPONENT_MAXIMUM = 0x7FFE;
+    private static final int QUANTIZED_COMPONENT_MASK = 0x7FFF;
+    private static final int QUANTIZED_INDEX_BIT = 0x8000;
+    private static final float SMALLEST_THREE_RANGE = (float) (1 / Math.sqrt(2));
+
+    private float[] values;
+    private short[] quantizedValues;
+
+    private QuatTimeline(float length, int initialCapacity) {
+        super(length, initialCapacity);
+        this.values = new float[this.times.length * STRIDE];
+        this.quantizedValues = null;
+    }
+
+    private QuatTimeline(QuatTimeline timeline) {
+        super(timeline);
+        this.values = timeline.values != null ? timeline.values.clone() : null;
+        this.quantizedValues = timeline.quantizedValues != null ? timeline.quantizedValues.clone() : null;
+    }
+
+    public static QuatTimeline of(float length) {
+        return of(length, 1);
+    }
+
+    /**
+     * Creates an empty timeline with room for the provided number of keyframes.
+     * @param length                Timeline length in seconds, used for looping.
+     * @param expectedKeyframes     Number of keyframes to reserve space for.
+     */
+    public static QuatTimeline of(float length, int expectedKeyframes) {
+        return new QuatTimeline(length, expectedKeyframes);
+    }
+
+    @Override
+    public QuatTimeline copy() {
+        return new QuatTimeline(this);
+    }
+
+    @Override
+    public QuatTimeline addKeyframe(float time, Quaternionfc value, Easing easing) {
+        return this.addKeyframe(time, value.x(), value.y(), value.z(), value.w(), easing);
+    }
+
+    public QuatTimeline addKeyframe(float time, float x, float y, float z, float w, Easing easing) {
+        if (this.isQuantized()) {
+            throw new IllegalStateException("Cannot add keyframes to a quantized timeline.");
+        }
+        int offset = this.insertKeyframe(time, easing) * STRIDE;
+        this.values[offset] = x;
+        this.values[offset + 1] = y;
+        this.values[offset + 2] = z;
+        this.values[offset + 3] = w;
+        return this;
+    }
+
+    /**
+     * Replaces the full precision rotations with the 48-bit smallest three encoding, with an error of roughly 0.0001
+     * radians per rotation.
+     * @return                      This timeline
+     */
+    public QuatTimeline quantize() {
+        if (this.isQuantized()) {
+            return this;
+        }
+        this.quantizedValues = new short[this.keyframeCount * QUANTIZED_STRIDE];
+        for (int keyframeIndex = 0; keyframeIndex < this.keyframeCount; keyframeIndex++) {
+            int offset = keyframeIndex * STRIDE;
+            float length = (float) Math.sqrt(
+                    this.values[offset] * this.values[offset]
+                    + this.values[offset + 1] * this.values[offset + 1]
+                    + this.values[offset + 2] * this.values[offset + 2]
+                    + this.values[offset + 3] * this.values[offset + 3]
+            );
+            int largestComponent = 0;
+            for (int component = 1; component < STRIDE; component++) {
+                if (Math.abs(this.values[offset + component]) > Math.abs(this.values[offset + largestComponent])) {
+                    largestComponent = component;
+                }
+            }
+            // Flip the rotation so the largest component is positive, which lets its sign be left out.
+            float scale = (this.values[offset + largestComponent] < 0 ? -1 : 1) / (length == 0 ? 1 : length);
+            int quantizedOffset = keyframeIndex * QUANTIZED_STRIDE;
+            int quantizedComponent = 0;
+            for (int component = 0; component < STRIDE; component++) {
+                if (component != largestComponent) {
+                    float normalized = (this.values[offset + component] * scale / SMALLEST_THREE_RANGE + 1) * 0.5f;
+                    int quantized = Math.clamp(Math.round(normalized * QUANTIZED_COMPONENT_MAXIMUM), 0, QUANTIZED_COMPONENT_MAXIMUM);
+                    this.quantizedValues[quantizedOffset + quantizedComponent++] = (short) quantized;
+                }
+            }
+            // The index of the largest component is stored in the otherwise unused top bits of the first two values.
+            if ((largestComponent & 2) != 0) {
+                this.quantizedValues[quantizedOffset] |= (short) QUANTIZED_INDEX_BIT;
+            }
+            if ((largestComponent & 1) != 0) {
+                this.quantizedValues[quantizedOffset + 1] |= (short) QUANTIZED_INDEX_BIT;
+            }
+        }
+        this.values = null;
+        return this.collapseIfConstant();
+    }
+
+    public boolean isQuantized() {
+        return this.quantizedValues != null;
+    }
+
+    private static float decodeComponent(short quantized) {
+        return ((quantized & QUANTIZED_COMPONENT_MASK) / (float) QUANTIZED_COMPONENT_MAXIMUM * 2 - 1) * SMALLEST_THREE_RANGE;
+    }
+
+    @Override
+    protected void resizeValues(int capacity) {
+        if (this.isQuantized()) {
+            this.quantizedValues = Arrays.copyOf(this.quantizedValues, capacity * QUANTIZED_STRIDE);
+        } else {
+            this.values = Arrays.copyOf(this.values, capacity * STRIDE);
+        }
+    }
+
+    @Override
+    protected void shiftValues(int index, int count) {
+        System.arraycopy(this.values, index * STRIDE, this.values, (index + 1) * STRIDE, count * STRIDE);
+    }
+
+    @Override
+    protected void moveValue(int fromKeyframeIndex, int toKeyframeIndex) {
+        if (this.isQuantized()) {
+            System.arraycopy(this.quantizedValues, fromKeyframeIndex * QUANTIZED_STRIDE, this.quantizedValues, toKeyframeIndex * QUANTIZED_STRIDE, QUANTIZED_STRIDE);
+        } else {
+            System.arraycopy(this.values, fromKeyframeIndex * STRIDE, this.values, toKeyframeIndex * STRIDE, STRIDE);
+        }
+    }
+
+    @Override
+    protected boolean keyframeValuesEqual(int firstKeyframeIndex, int secondKeyframeIndex) {
+        if (this.isQuantized()) {
+            return Arrays.equals(
+                    this.quantizedValues, firstKeyframeIndex * QUANTIZED_STRIDE, (firstKeyframeIndex + 1) * QUANTIZED_STRIDE,
+                    this.quantizedValues, secondKeyframeIndex * QUANTIZED_STRIDE, (secondKeyframeIndex + 1) * QUANTIZED_STRIDE
+            );
+        }
+        return Arrays.equals(
+                this.values, firstKeyframeIndex * STRIDE, (firstKeyframeIndex + 1) * STRIDE,
+                this.values, secondKeyframeIndex * STRIDE, (secondKeyframeIndex + 1) * STRIDE
+        );
+    }
+
+    /**
+     * Measured as the angle in radians between the keyframe's rotation and the interpolated rotation.
+     */
+    @Override
+    protected float getInterpolationError(int firstKeyframeIndex, int secondKeyframeIndex, int keyframeIndex) {
+        Quaternionf interpolated = this.getKeyframeValue(firstKeyframeIndex, new Quaternionf()).slerp(
+                this.getKeyframeValue(secondKeyframeIndex, new Quaternionf()),
+                this.getKeyframeProgress(firstKeyframeIndex, secondKeyframeIndex, keyframeIndex)
+        ).normalize();
+        Quaternionf keyframeValue = this.getKeyframeValue(keyframeIndex, new Quaternionf()).normalize();
+        float dot = Math.min(Math.abs(interpolated.dot(keyframeValue)), 1);
+        return (float) (2 * Math.acos(dot));
+    }
+
+    @Override
+    protected int getValueDataSize() {
+        return this.isQuantized() ? this.quantizedValues.length * Short.BYTES : this.values.length * Float.BYTES;
+    }
+
+    public Quaternionf getKeyframeValue(int keyframeIndex, Quaternionf destination) {
+        if (!this.isQuantized()) {
+            int offset = keyframeIndex * STRIDE;
+            return destination.set(this.values[offset], this.values[offset + 1], this.values[offset + 2], this.values[offset + 3]);
+        }
+        int offset = keyframeIndex * QUANTIZED_STRIDE;
+        short first = this.quantizedValues[offset];
+        short second = this.quantizedValues[offset + 1];
+        short third = this.quantizedValues[offset + 2];
+        int largestComponent = ((first & QUANTIZED_INDEX_BIT) != 0 ? 2 : 0) | ((second & QUANTIZED_INDEX_BIT) != 0 ? 1 : 0);
+        float a = decodeComponent(first);
+        float b = decodeComponent(second);
+        float c = decodeComponent(third);
+        float largest = (float) Math.sqrt(Math.max(0, 1 - a * a - b * b - c * c));
+        return switch (largestComponent) {
+            case 0 -> destination.set(largest, a, b, c);
+            case 1 -> destination.set(a, largest, b, c);
+            case 2 -> destination.set(a, b, largest, c);
+            default -> destination.set(a, b, c, largest);
+        };
+    }
+
+    /**
+     * Samples the timeline at the provided time onto the destination quaternion.
+     * @param time                  Time in seconds
+     * @param looping               Whether the time should be looped or not.
+     * @param destination           Quaternion to write the sampled value onto
+     * @return                      Destination quaternion
+     */
+    public Quaternionf sample(float time, boolean looping, Quaternionf destination) {
+        return this.sample(this.getSampleTime(time, looping), destination);
+    }
+
+    /**
+     * Samples the timeline at the provided time onto the destination quaternion.
+     * @param time                  Time in seconds
+     * @param destination           Quaternion to write the sampled value onto
+     * @return                      Destination quaternion
+     */
+    public Quaternionf sample(float time, Quaternionf destination) {
+        return this.sample(this.findKeyframeIndex(time), time, destination);
+    }
+
+    /**
+     * Samples the timeline at the provided time onto the destination quaternion, starting from an already known keyframe.
+     * @param keyframeIndex         Last keyframe at or before the time, from {@link KeyframeTimeline#findKeyframeIndex(float)}
+     * @param time                  Time in seconds
+     * @param destination           Quaternion to write the sampled value onto
+     * @return                      Destination quaternion
+     */
+    public Quaternionf sample(int keyframeIndex, float time, Quaternionf destination) {
+        int firstKeyframe = this.getFirstSampledKeyframe(keyframeIndex);
+        int secondKeyframe = this.getSecondSampledKeyframe(keyframeIndex);
+        float progress = this.getEasedProgress(keyframeIndex, time);
+        if (progress == 0 || this.keyframeValuesEqual(firstKeyframe, secondKeyframe)) {
+            return this.getKeyframeValue(firstKeyframe, destination);
+        }
+        if (progress == 1) {
+            return this.getKeyframeValue(secondKeyframe, destination);
+        }
+
+        // The destination doubles as scratch space for reading both keyframes, so that sampling does not allocate.
+        this.getKeyframeValue(secondKeyframe, destination);
+        float bx = destination.x;
+        float by = destination.y;
+        float bz = destination.z;
+        float bw = destination.w;
+        this.getKeyframeValue(firstKeyframe, destination);
+        float ax = destination.x;
+        float ay = destination.y;
+        float az = destination.z;
+        float aw = destination.w;
+
+        // Same as Quaternionf#slerp, done on the unpacked values to avoid creating a quaternion for the second keyframe.
+        float cosom = ax * bx + ay * by + az * bz + aw * bw;
+        float absCosom = Math.abs(cosom);
+        float scale0;
+        float scale1;
+        if (1 - absCosom > 1E-6f) {
+            float sinSqr = 1 - absCosom * absCosom;
+            float sinom = (float) (1 / Math.sqrt(sinSqr));
+            float omega = (float) Math.atan2(sinSqr * sinom, absCosom);
+            scale0 = (float) (Math.sin((1 - progress) * omega) * sinom);
+            scale1 = (float) (Math.sin(progress * omega) * sinom);
+        } else {
+            scale0 = 1 - progress;
+            scale1 = progress;
+        }
+        scale1 = cosom >= 0 ? scale1 : -scale1;
+        return destination.set(
+                scale0 * ax + scale1 * bx,
+                scale0 * ay + scale1 * by,
+                scale0 * az + scale1 * bz,
+                scale0 * aw + scale1 * bw
+        );
+    }
+}
@@ -0,0 +1,231 @@
+package com.trainguy9512.locomotion.util;
+
+import org.joml.Vector3f;
+import org.joml.Vector3fc;
+
+import java.util.Arrays;
+
+/**
+ * Keyframe timeline of three-component vectors, linearly interpolated between keyframes. Values are packed as
+ * consecutive x, y, z floats.
+ * <p>
+ * Once all keyframes have been added, the timeline can be {@link Vec3Timeline#quantize() quantized}, which stores every
+ * component as a 16-bit value relative to the range of that component across the timeline.
+ */
+public class Vec3Timeline extends KeyframeTimeline<Vec3Timeline, Vector3fc> {
+
+    private static final int STRIDE = 3;
+    private static final int QUANTIZED_MAXIMUM = 0xFFFF;
+
+    private float[] values;
+    private short[] quantizedValues;
+    private float[] quantizationMinimums;
+    private float[] quantizationSteps;
+
+    private Vec3Timeline(float length, int initialCapacity) {
+        super(length, initialCapacity);
+        this.values = new float[this.times.length * STRIDE];
+        this.quantizedValues = null;
+    }
+
+    private Vec3Timeline(Vec3Timeline timeline) {
+        super(timeline);
+        this.values = timeline.values != null ? timeline.values.clone() : null;
+        this.quantizedValues = timeline.quantizedValues != null ? timeline.quantizedValues.clone() : null;
+        this.quantizationMinimums = timeline.quantizationMinimums;
+        this.quantizationSteps = timeline.quantizationSteps;
+    }
+
+    public static Vec3Timeline of(float length) {
+        return of(length, 1);
+    }
+
+    /**
+     * Creates an empty timeline with room for the provided number of keyframes.
+     * @param length                Timeline length in seconds, used for looping.
+     * @param expectedKeyframes     Number of keyframes to reserve space for.
+     */
+    public static Vec3Timeline of(float length, int expectedKeyframes) {
+        return new Vec3Timeline(length, expectedKeyframes);
+    }
+
+    @Override
+    public Vec3Timeline copy() {
+        return new Vec3Timeline(this);
+    }
+
+    @Override
+    public Vec3Timeline addKeyframe(float time, Vector3fc value, Easing easing) {
+        return this.addKeyframe(time, value.x(), value.y(), value.z(), easing);
+    }
+
+    public Vec3Timeline addKeyframe(float time, float x, float y, float z, Easing easing) {
+        if (this.isQuantized()) {
+            throw new IllegalStateException("Cannot add keyframes to a quantized timeline.");
+        }
+        int offset = this.insertKeyframe(time, easing) * STRIDE;
+        this.values[offset] = x;
+        this.values[offset + 1] = y;
+        this.values[offset + 2] = z;
+        return this;
+    }
+
+    /**
+     * Replaces the full precision values with 16-bit values spread across the range of each component, so that the
+     * error of any component is at most half of its range divided by 65535.
+     * @return                      This timeline
+     */
+    public Vec3Timeline quantize() {
+        if (this.isQuantized()) {
+            return this;
+        }
+        this.quantizationMinimums = new float[STRIDE];
+        this.quantizationSteps = new float[STRIDE];
+        for (int component = 0; component < STRIDE; component++) {
+            float minimum = Float.POSITIVE_INFINITY;
+            float maximum = Float.NEGATIVE_INFINITY;
+            for (int keyframeIndex = 0; keyframeIndex < this.keyframeCount; keyframeIndex++) {
+                float value = this.values[keyframeIndex * STRIDE + component];
+                minimum = Math.min(minimum, value);
+                maximum = Math.max(maximum, value);
+            }
+            this.quantizationMinimums[component] = this.keyframeCount > 0 ? minimum : 0;
+            this.quantizationSteps[component] = this.keyframeCount > 0 ? (maximum - minimum) / QUANTIZED_MAXIMUM : 0;
+        }
+        this.quantizedValues = new short[this.keyframeCount * STRIDE];
+        for (int index = 0; index < this.quantizedValues.length; index++) {
+            int component = index % STRIDE;
+            float step = this.quantizationSteps[component];
+            int quantized = step == 0 ? 0 : Math.round((this.values[index] - this.quantizationMinimums[component]) / step);
+            this.quantizedValues[index] = (short) Math.clamp(quantized, 0, QUANTIZED_MAXIMUM);
+        }
+        this.values = null;
+        return this.collapseIfConstant();
+    }
+
+    public boolean isQuantized() {
+        return this.quantizedValues != null;
+    }
+
+    private float getValue(int index) {
+        if (this.values != null) {
+            return this.values[index];
+        }
+        int component = index % STRIDE;
+        return this.quantizationMinimums[component] + (this.quantizedValues[index] & QUANTIZED_MAXIMUM) * this.quantizationSteps[component];
+    }
+
+    @Override
+    protected void resizeValues(int capacity) {
+        if (this.isQuantized()) {
+            this.quantizedValues = Arrays.copyOf(this.quantizedValues, capacity * STRIDE);
+        } else {
+            this.values = Arrays.copyOf(this.values, capacity * STRIDE);
+        }
+    }
+
+    @Override
+    protected void shiftValues(int index, int count) {
+        System.arraycopy(this.values, index * STRIDE, this.values, (index + 1) * STRIDE, count * STRIDE);
+    }
+
+    @Override
+    protected void moveValue(int fromKeyframeIndex, int toKeyframeIndex) {
+        if (this.isQuantized()) {
+            System.arraycopy(this.quantizedValues, fromKeyframeIndex * STRIDE, this.quantizedValues, toKeyframeIndex * STRIDE, STRIDE);
+        } else {
+            System.arraycopy(this.values, fromKeyframeIndex * STRIDE, this.values, toKeyframeIndex * STRIDE, STRIDE);
+        }
+    }
+
+    @Override
+    protected boolean keyframeValuesEqual(int firstKeyframeIndex, int secondKeyframeIndex) {
+        if (this.isQuantized()) {
+            return Arrays.equals(
+                    this.quantizedValues, firstKeyframeIndex * STRIDE, (firstKeyframeIndex + 1) * STRIDE,
+                    this.quantizedValues, secondKeyframeIndex * STRIDE, (secondKeyframeIndex + 1) * STRIDE
+            );
+        }
+        return Arrays.equals(
+                this.values, firstKeyframeIndex * STRIDE, (firstKeyframeIndex + 1) * STRIDE,
+                this.values, secondKeyframeIndex * STRIDE, (secondKeyframeIndex + 1) * STRIDE
+        );
+    }
+
+    /**
+     * Measured as the largest difference of any component.
+     */
+    @Override
+    protected float getInterpolationError(int firstKeyframeIndex, int secondKeyframeIndex, int keyframeIndex) {
+        float progress = this.getKeyframeProgress(firstKeyframeIndex, secondKeyframeIndex, keyframeIndex);
+        float error = 0;
+        for (int component = 0; component < STRIDE; component++) {
+            float a = this.getValue(firstKeyframeIndex * STRIDE + component);
+            float b = this.getValue(secondKeyframeIndex * STRIDE + component);
+            float interpolated = a + (b - a) * progress;
+            error = Math.max(error, Math.abs(this.getValue(keyframeIndex * STRIDE + component) - interpolated));
+        }
+        return error;
+    }
+
+    @Override
+    protected int getValueDataSize() {
+        return this.isQuantized()
+                ? this.quantizedValues.length * Short.BYTES + STRIDE * 2 * Float.BYTES
+                : this.values.length * Float.BYTES;
+    }
+
+    public Vector3f getKeyframeValue(int keyframeIndex, Vector3f destination) {
+        int offset = keyframeIndex * STRIDE;
+        return destination.set(this.getValue(offset), this.getValue(offset + 1), this.getValue(offset + 2));
+    }
+
+    /**
+     * Samples the timeline at the provided time onto the destination vector.
+     * @param time                  Time in seconds
+     * @param looping               Whether the time should be looped or not.
+     * @param destination           Vector to write the sampled value onto
+     * @return                      Destination vector
+     */
+    public Vector3f sample(float time, boolean looping, Vector3f destination) {
+        return this.sample(this.getSampleTime(time, looping), destination);
+    }
+
+    /**
+     * Samples the timeline at the provided time onto the destination vector.
+     * @param time                  Time in seconds
+     * @param destination           Vector to write the sampled value onto
+     * @return                      Destination vector
+     */
+    public Vector3f sample(float time, Vector3f destination) {
+        return this.sample(this.findKeyframeIndex(time), time, destination);
+    }
+
+    /**
+     * Samples the timeline at the provided time onto the destination vector, starting from an already known keyframe.
+     * @param keyframeIndex         Last keyframe at or before the time, from {@link KeyframeTimeline#findKeyframeIndex(float)}
+     * @param time                  Time in seconds
+     * @param destination           Vector to write the sampled value onto
+     * @return                      Destination vector
+     */
+    public Vector3f sample(int keyframeIndex, float time, Vector3f destination) {
+        int a = this.getFirstSampledKeyframe(keyframeIndex) * STRIDE;
+        int b = this.getSecondSampledKeyframe(keyframeIndex) * STRIDE;
+        float progress = this.getEasedProgress(keyframeIndex, time);
+        if (this.values != null) {
+            return destination.set(
+                    this.values[a] + (this.values[b] - this.values[a]) * progress,
+                    this.values[a + 1] + (this.values[b + 1] - this.values[a + 1]) * progress,
+                    this.values[a + 2] + (this.values[b + 2] - this.values[a + 2]) * progress
+            );
+        }
+        float ax = this.getValue(a);
+        float ay = this.getValue(a + 1);
+        float az = this.getValue(a + 2);
+        return destination.set(
+                ax + (this.getValue(b) - ax) * progress,
+                ay + (this.getValue(b + 1) - ay) * progress,
+                az + (this.getValue(b + 2) - az) * progress
+        );
+    }
+}